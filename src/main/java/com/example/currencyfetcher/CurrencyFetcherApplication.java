@@ -1,6 +1,10 @@
 package com.example.currencyfetcher;
 
+import com.example.currencyfetcher.config.CacheProperties;
 import com.example.currencyfetcher.config.CurrencyApiProperties;
+import com.example.currencyfetcher.config.HistoryProperties;
+import com.example.currencyfetcher.config.IngestProperties;
+import com.example.currencyfetcher.config.RetentionProperties;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.boot.SpringApplication;
@@ -17,7 +21,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 )
 @SpringBootApplication
 @EnableScheduling
-@EnableConfigurationProperties(CurrencyApiProperties.class)
+@EnableConfigurationProperties({CurrencyApiProperties.class, IngestProperties.class, CacheProperties.class,
+        RetentionProperties.class, HistoryProperties.class})
 public class CurrencyFetcherApplication {
     public static void main(String[] args) {
         SpringApplication.run(CurrencyFetcherApplication.class, args);
@@ -0,0 +1,160 @@
+package com.example.currencyfetcher.cache;
+
+import com.example.currencyfetcher.dto.CacheStatsDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Bounded in-memory cache on top of Caffeine, meant to back any cached lookup (latest rates, historical
+ * lookups, conversions).
+ * <ul>
+ *     <li>the total weight of the entries is capped; the weigher is supplied per cache</li>
+ *     <li>eviction is frequency- and recency-aware (Caffeine's W-TinyLFU)</li>
+ *     <li>every entry carries its own expiry, chosen when it is written</li>
+ *     <li>hits, misses, evictions and load latency are recorded and reported by {@link #stats()}, and exported
+ *     as the standard {@code cache.*} meters tagged with the cache name</li>
+ * </ul>
+ */
+public final class CacheEngine<K, V> implements MeterBinder {
+
+    private final String name;
+    private final long maximumWeight;
+    private final ConcurrentStatsCounter statsCounter = new ConcurrentStatsCounter();
+    private final Cache<K, Expiring<V>> cache;
+
+    public CacheEngine(String name, long maximumWeight, ToIntBiFunction<K, V> weigher) {
+        this.name = name;
+        this.maximumWeight = maximumWeight;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((K key, Expiring<V> entry) -> weigher.applyAsInt(key, entry.value()))
+                .expireAfter(new PerEntryExpiry<K, V>())
+                .recordStats(() -> statsCounter)
+                .build();
+    }
+
+    /**
+     * Reads through Caffeine, so the lookup counts as a hit or miss and feeds the eviction policy. An entry that
+     * is present but not {@code usable} is checked quietly and counted as a miss, without counting as a read.
+     */
+    public V getIfPresent(K key, Predicate<V> usable) {
+        Expiring<V> present = cache.policy().getIfPresentQuietly(key);
+        if (present != null && !usable.test(present.value())) {
+            statsCounter.recordMisses(1);
+            return null;
+        }
+        Expiring<V> entry = cache.getIfPresent(key);
+        return entry == null ? null : entry.value();
+    }
+
+    /**
+     * Reads an entry without touching the statistics or the eviction policy, for internal checks that are not
+     * reads on behalf of a caller.
+     */
+    public V peek(K key) {
+        Expiring<V> entry = cache.policy().getIfPresentQuietly(key);
+        return entry == null ? null : entry.value();
+    }
+
+    public void put(K key, V value, Duration expireAfterWrite) {
+        cache.put(key, new Expiring<>(value, expireAfterWrite.toNanos()));
+    }
+
+    /**
+     * Runs {@code loader} against the backing store and records its latency; callers coordinate concurrent
+     * loads themselves (see {@link SingleFlight}).
+     */
+    public <T> T recordLoad(Supplier<T> loader) {
+        long start = System.nanoTime();
+        try {
+            T loaded = loader.get();
+            statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            return loaded;
+        } catch (RuntimeException ex) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            throw ex;
+        }
+    }
+
+    /**
+     * Registers Micrometer's Caffeine meters plus {@code cache.hit.ratio} and {@code cache.weight}. The weight is
+     * read as of Caffeine's last maintenance run; a scrape does not trigger one.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+        Gauge.builder("cache.hit.ratio", statsCounter, counter -> counter.snapshot().hitRate())
+                .tag("cache", name)
+                .description("Share of lookups served from the cache")
+                .register(registry);
+        Gauge.builder("cache.weight", cache, CacheEngine::weightedSize)
+                .tag("cache", name)
+                .description("Total weight of the cached entries")
+                .register(registry);
+    }
+
+    public List<K> keys() {
+        return List.copyOf(cache.asMap().keySet());
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Runs pending maintenance first, so size and eviction counts reflect every completed write.
+     */
+    public CacheStatsDto stats() {
+        cache.cleanUp();
+        CacheStats stats = statsCounter.snapshot();
+        return new CacheStatsDto(
+                name,
+                cache.estimatedSize(),
+                weightedSize(cache),
+                maximumWeight,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.loadCount(),
+                stats.averageLoadPenalty() / 1_000_000d);
+    }
+
+    private static long weightedSize(Cache<?, ?> cache) {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private record Expiring<V>(V value, long expireAfterNanos) {
+    }
+
+    private static final class PerEntryExpiry<K, V> implements Expiry<K, Expiring<V>> {
+
+        @Override
+        public long expireAfterCreate(K key, Expiring<V> entry, long currentTime) {
+            return entry.expireAfterNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Expiring<V> entry, long currentTime, long currentDuration) {
+            return entry.expireAfterNanos();
+        }
+
+        @Override
+        public long expireAfterRead(K key, Expiring<V> entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
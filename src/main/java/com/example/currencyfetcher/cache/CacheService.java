@@ -1,44 +1,121 @@
 package com.example.currencyfetcher.cache;
-import lombok.RequiredArgsConstructor;
+import com.example.currencyfetcher.config.CacheProperties;
+import com.example.currencyfetcher.dto.CacheStatsDto;
+import com.example.currencyfetcher.model.ScaledRate;
+import com.example.currencyfetcher.util.CurrencyCodes;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+/**
+ * Latest rate per currency, held as {@link ScaledRate}s and keyed by the canonical code string of
+ * {@link CurrencyCodes}, so lookups neither upper-case nor re-hash the requested code. Entries age from the
+ * moment they were cached rather than from the rate's own timestamp, because unchanged rates keep their
+ * original timestamp for a long time. They are evicted once they are past both the TTL and the stale-serving
+ * window, or when the cache exceeds its maximum weight.
+ */
 @Component
-@RequiredArgsConstructor
-public class CacheService {
+public class CacheService implements MeterBinder {
 
-    private static final int TTL_SECONDS = 60;
+    private final CacheProperties properties;
+    private final CacheEngine<String, CacheEntry> engine;
 
-    private final ConcurrentHashMap<String, CachedCurrency> cache = new ConcurrentHashMap<>();
+    public CacheService(CacheProperties properties) {
+        this.properties = properties;
+        this.engine = new CacheEngine<>("latest-rates", properties.getMaximumWeight(), (code, entry) -> 1);
+    }
+
+    public Optional<ScaledRate> getIfFresh(String code) {
+        return Optional.ofNullable(engine.getIfPresent(CurrencyCodes.canonical(code), this::isFresh)).map(CacheEntry::value);
+    }
 
-    public Optional<CachedCurrency> getIfFresh(String code) {
-        CachedCurrency cached = cache.get(code.toUpperCase());
-        if (cached != null && !isExpired(cached.getTimestamp())) {
-            return Optional.of(cached);
+    /**
+     * @return the entry even when expired, as long as it is within the configured {@code max-stale}
+     */
+    public Optional<ScaledRate> getIfServable(String code) {
+        CacheEntry entry = engine.peek(CurrencyCodes.canonical(code));
+        if (entry != null && !entry.age().minus(properties.getTtl().plus(properties.getMaxStale())).isPositive()) {
+            return Optional.of(entry.value());
         }
         return Optional.empty();
     }
 
-    public CachedCurrency update(String code, BigDecimal rate, LocalDateTime timestamp) {
+    public ScaledRate update(String code, BigDecimal rate, LocalDateTime timestamp) {
         if (rate == null || timestamp == null) {
             throw new IllegalArgumentException("Cannot cache null values.");
         }
-        CachedCurrency updated = new CachedCurrency("EUR", rate, timestamp);
-        cache.put(code.toUpperCase(), updated);
+        CurrencyCodes.register(code);
+        ScaledRate updated = ScaledRate.of(CurrencyCodes.canonical(code), rate, timestamp);
+        put(updated, Instant.now());
         return updated;
     }
 
+    public void update(ScaledRate rate) {
+        put(rate, Instant.now());
+    }
+
+    /**
+     * Write-through from the ingest pipeline: caches every rate of a tick as fresh.
+     */
+    public void updateAll(Collection<ScaledRate> rates) {
+        Instant now = Instant.now();
+        rates.forEach(rate -> put(rate, now));
+    }
+
+    /**
+     * Runs a load from the backing store, recording its latency in the cache statistics.
+     */
+    public <T> T recordLoad(Supplier<T> loader) {
+        return engine.recordLoad(loader);
+    }
+
+    /**
+     * @return codes whose entries expire within the refresh-ahead window (or already did)
+     */
+    public List<String> dueForRefresh() {
+        Duration refreshAfter = properties.getTtl().minus(properties.getRefreshAhead());
+        return engine.keys().stream()
+                .filter(code -> {
+                    CacheEntry entry = engine.peek(code);
+                    return entry != null && entry.age().compareTo(refreshAfter) >= 0;
+                })
+                .toList();
+    }
+
+    public CacheStatsDto stats() {
+        return engine.stats();
+    }
 
-    private boolean isExpired(LocalDateTime timestamp) {
-        return Duration.between(timestamp, LocalDateTime.now()).getSeconds() > TTL_SECONDS;
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        engine.bindTo(registry);
     }
 
     public void clear() {
-        cache.clear();
+        engine.invalidateAll();
+    }
+
+    private void put(ScaledRate value, Instant cachedAt) {
+        engine.put(value.code(), new CacheEntry(value, cachedAt), properties.getTtl().plus(properties.getMaxStale()));
+    }
+
+    private boolean isFresh(CacheEntry entry) {
+        return !entry.age().minus(properties.getTtl()).isPositive();
+    }
+
+    private record CacheEntry(ScaledRate value, Instant cachedAt) {
+
+        Duration age() {
+            return Duration.between(cachedAt, Instant.now());
+        }
     }
 }
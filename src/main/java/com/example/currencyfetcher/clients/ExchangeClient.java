@@ -3,55 +3,120 @@ package com.example.currencyfetcher.clients;
 import com.example.currencyfetcher.config.CurrencyApiProperties;
 import com.example.currencyfetcher.dto.CurrencyApiResponseDto;
 import com.example.currencyfetcher.exceptions.ExternalServiceException;
-import io.github.resilience4j.retry.annotation.Retry;
-import lombok.RequiredArgsConstructor;
+import com.example.currencyfetcher.ingest.IngestStats;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class ExchangeClient {
 
     private final WebClient webClient;
     private final CurrencyApiProperties apiProperties;
+    private final Retry retry;
+    private final IngestStats ingestStats;
 
-    @Retry(name = "exchangeClient", fallbackMethod = "fallbackResponse")
-    public CurrencyApiResponseDto fetchLatestRates(String baseCurrency) {
+    private final Map<String, CachedResponse> lastResponses = new ConcurrentHashMap<>();
+
+    public ExchangeClient(WebClient webClient,
+                          CurrencyApiProperties apiProperties,
+                          RetryRegistry retryRegistry,
+                          IngestStats ingestStats) {
+        this.webClient = webClient;
+        this.apiProperties = apiProperties;
+        this.retry = retryRegistry.retry("exchangeClient");
+        this.ingestStats = ingestStats;
+        retry.getEventPublisher().onRetry(event -> ingestStats.providerRetry());
+    }
+
+    /**
+     * Non-blocking fetch of the latest rates for a base currency. Each attempt is bounded by
+     * {@code currency.api.timeout}; failed attempts are retried per the {@code exchangeClient}
+     * Resilience4j retry config without blocking a thread between attempts.
+     * <p>
+     * Requests are conditional on the ETag / Last-Modified of the previous response for the same base.
+     * On {@code 304 Not Modified} the previous response is emitted again (the same instance), so callers
+     * can tell it apart from new rates.
+     * <p>
+     * The whole call, retries included, is timed as {@code currency.provider.fetch} per base and outcome.
+     */
+    public Mono<CurrencyApiResponseDto> fetchLatestRates(String baseCurrency) {
         String uri = UriComponentsBuilder
                 .fromUriString(apiProperties.getBaseUrl())
                 .pathSegment(apiProperties.getKey(), "latest", baseCurrency)
                 .build()
                 .toUriString();
 
-        log.info("Calling Exchange API: {}", uri);
-
-        return webClient.get()
-                .uri(uri)
-                .retrieve()
-                .onStatus(
-                        status -> status.is4xxClientError() || status.is5xxServerError(),
-                        response -> response.bodyToMono(String.class)
-                                .defaultIfEmpty("No error body")
-                                .flatMap(body -> {
-                                    log.error("Exchange API error {}: {}", response.statusCode(), body);
-                                    return Mono.error(new ExternalServiceException("Exchange API failed: " + body));
-                                })
-                )
-                .bodyToMono(CurrencyApiResponseDto.class)
-                .timeout(Duration.ofSeconds(5))
-                .doOnError(ex -> log.error("Exchange API call failed", ex))
-                .block();
+        Mono<CurrencyApiResponseDto> call = Mono.defer(() -> {
+                    log.info("Calling Exchange API for base {}", baseCurrency);
+                    ingestStats.providerCall();
+                    CachedResponse previous = lastResponses.get(baseCurrency);
+                    return webClient.get()
+                            .uri(uri)
+                            .headers(headers -> {
+                                if (previous == null) return;
+                                if (previous.etag() != null) headers.setIfNoneMatch(previous.etag());
+                                if (previous.lastModified() != null) {
+                                    headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+                                }
+                            })
+                            .retrieve()
+                            .onStatus(
+                                    status -> status.is4xxClientError() || status.is5xxServerError(),
+                                    response -> response.bodyToMono(String.class)
+                                            .defaultIfEmpty("No error body")
+                                            .flatMap(body -> {
+                                                log.error("Exchange API error {}: {}", response.statusCode(), body);
+                                                return Mono.error(new ExternalServiceException("Exchange API failed: " + body));
+                                            })
+                            )
+                            .toEntity(CurrencyApiResponseDto.class)
+                            .timeout(apiProperties.getTimeout())
+                            .flatMap(entity -> {
+                                if (entity.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && previous != null) {
+                                    log.debug("Rates for base {} not modified", baseCurrency);
+                                    ingestStats.notModified();
+                                    return Mono.just(previous.body());
+                                }
+                                CurrencyApiResponseDto body = entity.getBody();
+                                if (body == null) {
+                                    return Mono.error(new ExternalServiceException(
+                                            "Exchange API returned no body (" + entity.getStatusCode() + ")"));
+                                }
+                                lastResponses.put(baseCurrency, new CachedResponse(
+                                        entity.getHeaders().getETag(),
+                                        entity.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED),
+                                        body));
+                                return Mono.just(body);
+                            });
+                })
+                .transformDeferred(RetryOperator.of(retry))
+                .onErrorMap(ex -> {
+                    log.error("Exchange API call for base {} failed after retries: {}", baseCurrency, ex.getMessage());
+                    return new ExternalServiceException("Failed to fetch rates from external API after retries", ex);
+                });
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(body -> ingestStats.providerFetch(baseCurrency, "success", System.nanoTime() - start))
+                    .doOnError(ex -> ingestStats.providerFetch(baseCurrency, "error", System.nanoTime() - start))
+                    // e.g. the ingest run's per-base timeout gave up on the call
+                    .doOnCancel(() -> ingestStats.providerFetch(baseCurrency, "cancelled", System.nanoTime() - start));
+        });
     }
 
-    // Fallback for Resilience4j Retry
-    public CurrencyApiResponseDto fallbackResponse(String baseCurrency, Throwable ex) {
-        log.error("Fallback triggered for fetchLatestRates with baseCurrency {}: {}", baseCurrency, ex.getMessage());
-        throw new ExternalServiceException("Failed to fetch rates from external API after retries");
+    private record CachedResponse(String etag, String lastModified, CurrencyApiResponseDto body) {
     }
 }
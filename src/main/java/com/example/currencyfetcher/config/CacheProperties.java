@@ -0,0 +1,40 @@
+package com.example.currencyfetcher.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.cache")
+public class CacheProperties {
+
+    /**
+     * How long an entry counts as fresh after it was cached (written by ingest, refreshed or loaded).
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+
+    /**
+     * Entries this close to expiry are reloaded proactively, so reads do not have to.
+     */
+    private Duration refreshAhead = Duration.ofSeconds(15);
+
+    /**
+     * How often the refresh-ahead job looks for entries to reload.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(5);
+
+    /**
+     * How long past its TTL an entry may still be served when no fresher source has the rate.
+     * Zero never serves stale entries.
+     */
+    private Duration maxStale = Duration.ZERO;
+
+    /**
+     * Upper bound on the total weight of cached entries (one unit per latest rate); beyond it the least
+     * valuable entries are evicted.
+     */
+    private long maximumWeight = 10_000;
+}
@@ -4,11 +4,14 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @Getter
 @Setter
 @ConfigurationProperties(prefix = "currency.api")
 public class CurrencyApiProperties {
     private String key;
     private String baseUrl;
+    private Duration timeout = Duration.ofSeconds(5);
 }
 
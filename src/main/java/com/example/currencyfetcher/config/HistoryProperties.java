@@ -0,0 +1,32 @@
+package com.example.currencyfetcher.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.history")
+public class HistoryProperties {
+
+    /**
+     * Where history rows live: one {@code currency_rates} table, one table per calendar month that range
+     * queries are routed to, one row per fetch batch with the rates in a compact child table, or one
+     * memory-mapped file per currency outside the database.
+     */
+    private Storage storage = Storage.TABLE;
+
+    /**
+     * Directory of the per-currency files when {@code storage} is {@code mapped}.
+     */
+    private Path directory = Path.of("data", "history");
+
+    public enum Storage {
+        TABLE,
+        PARTITIONED,
+        NORMALIZED,
+        MAPPED
+    }
+}
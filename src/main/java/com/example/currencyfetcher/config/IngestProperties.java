@@ -0,0 +1,56 @@
+package com.example.currencyfetcher.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.ingest")
+public class IngestProperties {
+
+    /**
+     * Persist a rate only when it differs from the last persisted value for that currency.
+     */
+    private boolean changeOnly = false;
+
+    /**
+     * With change-only persistence, unchanged rates are still written at least this often.
+     */
+    private Duration heartbeatInterval = Duration.ofMinutes(15);
+
+    /**
+     * Base currencies fetched every tick. The first one is persisted and drives the snapshot; the others
+     * supply native quotes for the cross-rate table instead of triangulating through the first.
+     */
+    private List<String> bases = List.of("USD");
+
+    /**
+     * Upper bound on base fetches in flight at the same time.
+     */
+    private int maxConcurrentFetches = 4;
+
+    /**
+     * Time budget for one base, retries included. A secondary base that misses it is left out of the tick.
+     * Keep it above the retry budget (attempts x api timeout + waits), or the last attempt is cut short.
+     */
+    private Duration baseTimeout = Duration.ofSeconds(20);
+
+    /**
+     * How often the scheduler wakes up, and the shortest gap between two provider calls.
+     */
+    private Duration minPollInterval = Duration.ofSeconds(60);
+
+    /**
+     * Longest gap between two provider calls, however far away the provider's next update is.
+     */
+    private Duration maxPollInterval = Duration.ofHours(1);
+
+    /**
+     * Delay after the provider's advertised next update before polling, so the new rates are out.
+     */
+    private Duration nextUpdateGrace = Duration.ofSeconds(30);
+}
@@ -0,0 +1,28 @@
+package com.example.currencyfetcher.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+
+@Configuration
+public class IngestSchedulerConfig {
+
+    /**
+     * Scheduler the ingest pipeline persists on once the non-blocking fetch completes. Follows
+     * {@code spring.threads.virtual.enabled}: one virtual thread per run when enabled, otherwise a
+     * dedicated bounded-elastic pool.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler ingestScheduler(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "ingest");
+        }
+        return Schedulers.newBoundedElastic(
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "ingest");
+    }
+}
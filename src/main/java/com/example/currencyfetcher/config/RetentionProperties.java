@@ -0,0 +1,44 @@
+package com.example.currencyfetcher.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.retention")
+public class RetentionProperties {
+
+    /**
+     * Run the background compaction of the rate history.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Every history row is kept this long; older days are thinned to the last row of each hour.
+     */
+    private Duration raw = Duration.ofDays(7);
+
+    /**
+     * Hourly rows are kept this long; older days are thinned to the last row of each day, which is kept forever.
+     */
+    private Duration hourly = Duration.ofDays(90);
+
+    /**
+     * Rows older than this are removed altogether; unset keeps the daily rows forever. Partitioned storage drops
+     * whole months, once all of a month is past it.
+     */
+    private Duration maxAge;
+
+    /**
+     * Pause between two compaction runs.
+     */
+    private Duration interval = Duration.ofHours(1);
+
+    /**
+     * Upper bound on the rows one delete statement removes, and so on how long it holds its locks.
+     */
+    private int batchSize = 1_000;
+}
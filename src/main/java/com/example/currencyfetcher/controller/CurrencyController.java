@@ -1,33 +1,80 @@
 package com.example.currencyfetcher.controller;
 
+import com.example.currencyfetcher.dto.BatchConversionResultDto;
+import com.example.currencyfetcher.dto.CacheStatsDto;
+import com.example.currencyfetcher.dto.ConversionRequestDto;
 import com.example.currencyfetcher.dto.ConvertedCurrencyDto;
+import com.example.currencyfetcher.dto.CurrencyCandleDto;
 import com.example.currencyfetcher.dto.CurrencyRateHistoryDto;
 import com.example.currencyfetcher.dto.CurrencyResponseDto;
+import com.example.currencyfetcher.dto.HistoryPageDto;
+import com.example.currencyfetcher.dto.IngestStatsDto;
+import com.example.currencyfetcher.model.CandleGranularity;
 import com.example.currencyfetcher.service.CurrencyService;
+import com.example.currencyfetcher.snapshot.LatestRatesHolder;
+import com.example.currencyfetcher.snapshot.LatestRatesSnapshot;
+import com.example.currencyfetcher.validation.CurrencyValidator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @RestController
 @RequestMapping("/api/currency")
 @RequiredArgsConstructor
 @Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Tag(name = "Currency API", description = "Endpoints for exchange rates and currency conversion")
 public class CurrencyController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Snapshot versions restart at 1 with the process, so the ETag carries the start time as well.
+    private static final String ETAG_PREFIX = "\"" + Long.toString(System.currentTimeMillis(), 36) + "-";
+    private static final String CACHE_CONTROL = CacheControl.noCache().getHeaderValue();
+
     private final CurrencyService currencyService;
+    private final ObjectMapper objectMapper;
+    private final LatestRatesHolder latestRates;
+    private final CurrencyValidator validator;
 
     @Operation(summary = "Get exchange rate for a currency code")
     @ApiResponses(value = {
@@ -40,9 +87,35 @@ public class CurrencyController {
     public ResponseEntity<CurrencyResponseDto> getCurrencyRates(
             @PathVariable("code")
             @Pattern(regexp = "^[A-Z]{3}$", message = "Currency code must be 3 uppercase letters")
-            String code) {
+            String code,
+
+            ServletWebRequest request) {
+
+        validator.validate(code);
+        LatestRatesSnapshot snapshot = latestRates.current();
+        if (snapshot.find(code).isPresent() && notModified(request, snapshot)) {
+            return null;
+        }
+        return ResponseEntity.ok(currencyService.getRatesForCurrency(code));
+    }
 
-        CurrencyResponseDto responseDto = currencyService.getRatesForCurrency(code);
+    @Operation(summary = "Get the exchange rate that was in effect at a point in time")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful retrieval",
+                    content = @Content(schema = @Schema(implementation = CurrencyResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid currency code or no rate at that time")
+    })
+    @GetMapping("/{code}/as-of")
+    public ResponseEntity<CurrencyResponseDto> getRateAsOf(
+            @PathVariable("code")
+            @Pattern(regexp = "^[A-Z]{3}$", message = "Currency code must be 3 uppercase letters")
+            String code,
+
+            @RequestParam("timestamp")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime timestamp) {
+
+        CurrencyResponseDto responseDto = currencyService.getRateAsOf(code, timestamp);
         return ResponseEntity.ok(responseDto);
     }
 
@@ -65,10 +138,76 @@ public class CurrencyController {
 
             @RequestParam("amount")
             @DecimalMin(value = "0.0", inclusive = false, message = "Amount must be greater than 0")
-            BigDecimal amount) {
+            BigDecimal amount,
 
-        ConvertedCurrencyDto result = currencyService.convert(from, to, amount);
-        return ResponseEntity.ok(result);
+            ServletWebRequest request) {
+
+        validator.validate(from);
+        validator.validate(to);
+        LatestRatesSnapshot snapshot = latestRates.current();
+        if (snapshot.getCrossRates().rate(from, to) != null && notModified(request, snapshot)) {
+            return null;
+        }
+        return ResponseEntity.ok(currencyService.convert(from, to, amount));
+    }
+
+    @Operation(summary = "Convert many amounts in one request",
+            description = "Accepts a JSON array or an NDJSON stream of conversions and streams the results back "
+                    + "in the same format. Items that cannot be converted carry an inline error.")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    array = @ArraySchema(schema = @Schema(implementation = ConversionRequestDto.class))),
+            @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = ConversionRequestDto.class))
+    })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-item conversion results",
+                    content = @Content(array = @ArraySchema(
+                            schema = @Schema(implementation = BatchConversionResultDto.class))))
+    })
+    @PostMapping(value = "/convert/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void convertBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+        response.setContentType(ndjson ? MediaType.APPLICATION_NDJSON_VALUE : MediaType.APPLICATION_JSON_VALUE);
+
+        MappingIterator<ConversionRequestDto> items = objectMapper
+                .readerFor(ConversionRequestDto.class)
+                .readValues(request.getInputStream());
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            if (ndjson) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            int written = 0;
+            try (Stream<BatchConversionResultDto> results = currencyService.convertBatch(
+                    StreamSupport.stream(Spliterators.spliteratorUnknownSize(items, Spliterator.ORDERED), false))) {
+                for (Iterator<BatchConversionResultDto> it = results.iterator(); it.hasNext(); written++) {
+                    writeItem(generator, it.next(), ndjson);
+                }
+            } catch (RuntimeException ex) {
+                // MappingIterator wraps parse errors; the body stops being readable here, so report it inline.
+                if (!(ex instanceof RuntimeJsonMappingException) && !(ex.getCause() instanceof JsonProcessingException)) {
+                    throw ex;
+                }
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                writeItem(generator, BatchConversionResultDto.failure(written, null, null, null,
+                        "Malformed request item: " + cause.getMessage()), ndjson);
+            }
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private void writeItem(JsonGenerator generator, BatchConversionResultDto result, boolean ndjson) throws IOException {
+        if (ndjson) {
+            writeLine(generator, result);
+        } else {
+            generator.writeObject(result);
+        }
     }
 
     @Operation(summary = "Filter currencies by minimum exchange rate")
@@ -80,10 +219,15 @@ public class CurrencyController {
     public ResponseEntity<List<CurrencyResponseDto>> filterByMinRate(
             @RequestParam("minRate")
             @DecimalMin(value = "0.0", inclusive = false, message = "minRate must be greater than 0")
-            double minRate) {
+            double minRate,
+
+            ServletWebRequest request) {
 
-        List<CurrencyResponseDto> filtered = currencyService.filterByMinRate(minRate);
-        return ResponseEntity.ok(filtered);
+        requireParameter(minRate > 0, "minRate must be greater than 0");
+        if (notModified(request, latestRates.current())) {
+            return null;
+        }
+        return ResponseEntity.ok(currencyService.filterByMinRate(minRate));
     }
 
     @Operation(summary = "Get top currencies by rate")
@@ -94,16 +238,67 @@ public class CurrencyController {
     @GetMapping("/top")
     public ResponseEntity<List<CurrencyResponseDto>> topCurrencies(
             @RequestParam(name = "limit", defaultValue = "5")
-            int limit) {
+            @Min(value = 0, message = "limit must not be negative")
+            int limit,
+
+            ServletWebRequest request) {
+
+        requireParameter(limit >= 0, "limit must not be negative");
+        if (notModified(request, latestRates.current())) {
+            return null;
+        }
+        return ResponseEntity.ok(currencyService.getTopCurrencies(limit));
+    }
+
+    @Operation(summary = "Get the latest rates of every currency against a base currency")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rates returned successfully",
+                    content = @Content(schema = @Schema(implementation = CurrencyResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid currency code or no rates available yet")
+    })
+    @GetMapping("/rates/{base}")
+    public ResponseEntity<List<CurrencyResponseDto>> getRatesForBase(
+            @PathVariable("base")
+            @Pattern(regexp = "^[A-Z]{3}$", message = "Base currency must be 3 uppercase letters")
+            String base,
+
+            ServletWebRequest request) {
+
+        validator.validate(base);
+        LatestRatesSnapshot snapshot = latestRates.current();
+        if (snapshot.getCrossRates().rate(base, base) != null && notModified(request, snapshot)) {
+            return null;
+        }
+        return ResponseEntity.ok(currencyService.getRatesForBase(base));
+    }
+
+    @Operation(summary = "Get ingest counters, including provider calls and history writes that were avoided")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Counters returned successfully",
+                    content = @Content(schema = @Schema(implementation = IngestStatsDto.class)))
+    })
+    @GetMapping("/ingest/stats")
+    public ResponseEntity<IngestStatsDto> getIngestStats() {
+        return ResponseEntity.ok(currencyService.getIngestStats());
+    }
 
-        List<CurrencyResponseDto> topCurrencies = currencyService.getTopCurrencies(limit);
-        return ResponseEntity.ok(topCurrencies);
+    @Operation(summary = "Get cache statistics: size, hit ratio, evictions and load latency")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned successfully",
+                    content = @Content(schema = @Schema(implementation = CacheStatsDto.class)))
+    })
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsDto> getCacheStats() {
+        return ResponseEntity.ok(currencyService.getCacheStats());
     }
 
-    @Operation(summary = "Get historical rates for a currency code")
+    @Operation(summary = "Get historical rates for a currency code",
+            description = "Returns one keyset page, newest first. When more rows exist, the X-Next-Cursor header "
+                    + "holds the cursor to pass for the next (older) page.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Historical data returned successfully",
-                    content = @Content(schema = @Schema(implementation = CurrencyRateHistoryDto.class))),
+                    content = @Content(array = @ArraySchema(
+                            schema = @Schema(implementation = CurrencyRateHistoryDto.class)))),
             @ApiResponse(responseCode = "400", description = "Invalid currency code"),
             @ApiResponse(responseCode = "404", description = "Currency not found")
     })
@@ -111,9 +306,142 @@ public class CurrencyController {
     public ResponseEntity<List<CurrencyRateHistoryDto>> getHistory(
             @PathVariable("code")
             @Pattern(regexp = "^[A-Z]{3}$", message = "Currency code must be 3 uppercase letters")
-            String code) {
+            String code,
+
+            @RequestParam(name = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime from,
+
+            @RequestParam(name = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime to,
+
+            @RequestParam(name = "cursor", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime cursor,
+
+            @RequestParam(name = "limit", defaultValue = "500")
+            @Min(value = 1, message = "limit must be at least 1")
+            @Max(value = 5000, message = "limit must be at most 5000")
+            int limit) {
+
+        HistoryPageDto page = currencyService.getHistoryForCurrency(code, from, to, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        }
+        return response.body(page.items());
+    }
+
+    @Operation(summary = "Get OHLC candles for a currency code",
+            description = "Hourly or daily open/high/low/close rates, newest first, maintained as rates are ingested.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Candles returned successfully",
+                    content = @Content(array = @ArraySchema(
+                            schema = @Schema(implementation = CurrencyCandleDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid currency code")
+    })
+    @GetMapping("/history/{code}/ohlc")
+    public ResponseEntity<List<CurrencyCandleDto>> getCandles(
+            @PathVariable("code")
+            @Pattern(regexp = "^[A-Z]{3}$", message = "Currency code must be 3 uppercase letters")
+            String code,
+
+            @RequestParam(name = "granularity", defaultValue = "HOUR")
+            CandleGranularity granularity,
+
+            @RequestParam(name = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime from,
+
+            @RequestParam(name = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime to,
+
+            @RequestParam(name = "limit", defaultValue = "500")
+            @Min(value = 1, message = "limit must be at least 1")
+            @Max(value = 5000, message = "limit must be at most 5000")
+            int limit) {
+
+        List<CurrencyCandleDto> candles = currencyService.getCandlesForCurrency(code, granularity, from, to, limit);
+        return ResponseEntity.ok(candles);
+    }
+
+    @Operation(summary = "Stream historical rates for a currency code as NDJSON",
+            description = "Streams every rate in the time window, newest first, without buffering the result.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Historical data streamed successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = CurrencyRateHistoryDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid currency code")
+    })
+    @GetMapping("/history/{code}/stream")
+    public void streamHistory(
+            @PathVariable("code")
+            @Pattern(regexp = "^[A-Z]{3}$", message = "Currency code must be 3 uppercase letters")
+            String code,
+
+            @RequestParam(name = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime from,
+
+            @RequestParam(name = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime to,
+
+            HttpServletResponse response) throws IOException {
+
+        // The content type is only set once rows flow and the generator is not closed on failure,
+        // so an error raised before the first row still becomes a regular JSON error response.
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null);
+        currencyService.streamHistoryForCurrency(code, from, to, item -> {
+            try {
+                if (response.getContentType() == null) {
+                    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+                }
+                writeLine(generator, item);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        if (response.getContentType() == null) {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        }
+        generator.close();
+    }
+
+    /**
+     * Rates, conversions and rankings only change when a new snapshot is published, so its version validates
+     * them. It is checked before the service is called, so a 304 costs neither a lookup nor a serialized body;
+     * otherwise the ETag, Last-Modified and Cache-Control headers are added. Callers validate their parameters and
+     * check that the snapshot holds the requested codes first, so an unknown code still gets its 400 or 404
+     * rather than a 304. {@code snapshot} is read before the lookup, so a version published in between can only
+     * make the ETag older than the body, never newer. History and stats endpoints are not covered: retention
+     * rewrites history and the counters move on every poll.
+     */
+    private boolean notModified(ServletWebRequest request, LatestRatesSnapshot snapshot) {
+        if (snapshot.isEmpty()) {
+            return false;
+        }
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        // Snapshot timestamps come from the local clock (LocalDateTime.now()).
+        return request.checkNotModified(ETAG_PREFIX + snapshot.getVersion() + "\"",
+                snapshot.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * The constraint annotations document the parameters but are not enforced without a validation provider, so
+     * the parameters that decide a 304 are checked here, before it.
+     */
+    private static void requireParameter(boolean valid, String message) {
+        if (!valid) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+        }
+    }
 
-        List<CurrencyRateHistoryDto> history = currencyService.getHistoryForCurrency(code);
-        return ResponseEntity.ok(history);
+    private void writeLine(JsonGenerator generator, Object item) throws IOException {
+        generator.writeObject(item);
+        generator.writeRaw('\n');
     }
 }
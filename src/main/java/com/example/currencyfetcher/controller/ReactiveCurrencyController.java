@@ -0,0 +1,133 @@
+package com.example.currencyfetcher.controller;
+
+import com.example.currencyfetcher.config.CacheProperties;
+import com.example.currencyfetcher.dto.ConvertedCurrencyDto;
+import com.example.currencyfetcher.dto.CurrencyResponseDto;
+import com.example.currencyfetcher.mapper.ConvertedCurrencyMapper;
+import com.example.currencyfetcher.service.CurrencyService;
+import com.example.currencyfetcher.snapshot.LatestRatesHolder;
+import com.example.currencyfetcher.snapshot.LatestRatesSnapshot;
+import com.example.currencyfetcher.validation.CurrencyValidator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Pattern;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.concurrent.Callable;
+
+/**
+ * WebFlux variant of the read endpoints of {@link CurrencyController}, active when the application runs
+ * as a reactive web application ({@code --spring.profiles.active=reactive}). The endpoints are served from
+ * the in-memory latest-rates snapshot. As in the servlet mode, a single rate or conversion is only answered from
+ * a snapshot within the TTL plus {@code max-stale}; otherwise, or when the snapshot lacks the code, it falls back
+ * to {@link CurrencyService} on the bounded-elastic scheduler, so no request blocks an event-loop thread on the
+ * database.
+ */
+@RestController
+@RequestMapping("/api/currency")
+@RequiredArgsConstructor
+@Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Tag(name = "Currency API (reactive)", description = "Non-blocking exchange rate endpoints served from memory")
+public class ReactiveCurrencyController {
+
+    private final LatestRatesHolder latestRates;
+    private final CurrencyValidator validator;
+    private final CurrencyService currencyService;
+    private final CacheProperties cacheProperties;
+
+    @Operation(summary = "Get exchange rate for a currency code")
+    @GetMapping("/{code}")
+    public Mono<CurrencyResponseDto> getCurrencyRates(
+            @PathVariable("code")
+            @Pattern(regexp = "^[A-Z]{3}$", message = "Currency code must be 3 uppercase letters")
+            String code) {
+
+        return Mono.defer(() -> {
+            validator.validate(code);
+            return servableSnapshot().find(code)
+                    .map(Mono::just)
+                    .orElseGet(() -> fromService(() -> currencyService.getRatesForCurrency(code)));
+        });
+    }
+
+    @Operation(summary = "Convert currency between two codes")
+    @GetMapping("/convert")
+    public Mono<ConvertedCurrencyDto> convertCurrency(
+            @RequestParam("from")
+            @Pattern(regexp = "^[A-Z]{3}$", message = "From currency must be 3 uppercase letters")
+            String from,
+
+            @RequestParam("to")
+            @Pattern(regexp = "^[A-Z]{3}$", message = "To currency must be 3 uppercase letters")
+            String to,
+
+            @RequestParam("amount")
+            @DecimalMin(value = "0.0", inclusive = false, message = "Amount must be greater than 0")
+            BigDecimal amount) {
+
+        return Mono.defer(() -> {
+            validator.validate(from);
+            validator.validate(to);
+            BigDecimal converted = servableSnapshot().getCrossRates().convert(from, to, amount);
+            if (converted == null) {
+                return fromService(() -> currencyService.convert(from, to, amount));
+            }
+            return Mono.just(ConvertedCurrencyMapper.toDto(from, to, amount, converted));
+        });
+    }
+
+    private LatestRatesSnapshot servableSnapshot() {
+        return latestRates.currentWithin(cacheProperties.getTtl().plus(cacheProperties.getMaxStale()));
+    }
+
+    /**
+     * The service may query the database, so the lookup runs off the event loop.
+     */
+    private static <T> Mono<T> fromService(Callable<T> lookup) {
+        return Mono.fromCallable(lookup).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Operation(summary = "Filter currencies by minimum exchange rate")
+    @GetMapping("/filter")
+    public Flux<CurrencyResponseDto> filterByMinRate(
+            @RequestParam("minRate")
+            @DecimalMin(value = "0.0", inclusive = false, message = "minRate must be greater than 0")
+            double minRate) {
+
+        return Flux.defer(() -> Flux.fromIterable(latestRates.current().atLeast(BigDecimal.valueOf(minRate))));
+    }
+
+    @Operation(summary = "Get top currencies by rate")
+    @GetMapping("/top")
+    public Flux<CurrencyResponseDto> topCurrencies(
+            @RequestParam(name = "limit", defaultValue = "5")
+            int limit) {
+
+        return Flux.defer(() -> Flux.fromIterable(latestRates.current().top(limit)));
+    }
+
+    @Operation(summary = "Get the latest rates of every currency against a base currency")
+    @GetMapping("/rates/{base}")
+    public Flux<CurrencyResponseDto> getRatesForBase(
+            @PathVariable("base")
+            @Pattern(regexp = "^[A-Z]{3}$", message = "Base currency must be 3 uppercase letters")
+            String base) {
+
+        return Flux.defer(() -> {
+            validator.validate(base);
+            LatestRatesSnapshot snapshot = latestRates.current();
+            return Flux.fromIterable(snapshot.getCrossRates().ratesFor(base).entrySet())
+                    .map(entry -> new CurrencyResponseDto(entry.getKey(), entry.getValue(), snapshot.getTimestamp()));
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.currencyfetcher.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Result of one item of a batch conversion; either convertedAmount or error is set")
+public record BatchConversionResultDto(
+
+        @Schema(description = "Zero-based position of the item in the request", example = "0")
+        int index,
+
+        @Schema(description = "Currency code to convert from", example = "USD")
+        String from,
+
+        @Schema(description = "Currency code to convert to", example = "EUR")
+        String to,
+
+        @Schema(description = "Amount to convert", example = "100.00")
+        BigDecimal amount,
+
+        @Schema(description = "Converted amount", example = "92.50")
+        BigDecimal convertedAmount,
+
+        @Schema(description = "Why this item could not be converted", example = "Unsupported currency code: XYZ")
+        String error
+) {
+
+    public static BatchConversionResultDto success(int index, String from, String to,
+                                                   BigDecimal amount, BigDecimal convertedAmount) {
+        return new BatchConversionResultDto(index, from, to, amount, convertedAmount, null);
+    }
+
+    public static BatchConversionResultDto failure(int index, String from, String to,
+                                                   BigDecimal amount, String error) {
+        return new BatchConversionResultDto(index, from, to, amount, null, error);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.currencyfetcher.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Statistics of an in-memory cache since startup")
+public record CacheStatsDto(
+
+        @Schema(description = "Cache name", example = "latest-rates")
+        String name,
+
+        @Schema(description = "Entries currently held (approximate)", example = "163")
+        long size,
+
+        @Schema(description = "Total weight of the entries currently held", example = "163")
+        long weight,
+
+        @Schema(description = "Maximum total weight before entries are evicted", example = "10000")
+        long maximumWeight,
+
+        @Schema(description = "Lookups answered by the cache", example = "9120")
+        long hitCount,
+
+        @Schema(description = "Lookups the cache could not answer", example = "12")
+        long missCount,
+
+        @Schema(description = "hitCount / (hitCount + missCount), 1.0 when there were no lookups", example = "0.9987")
+        double hitRatio,
+
+        @Schema(description = "Entries evicted because of size or expiry", example = "0")
+        long evictionCount,
+
+        @Schema(description = "Loads from the backing store (successful and failed)", example = "12")
+        long loadCount,
+
+        @Schema(description = "Average time spent per load in milliseconds", example = "3.4")
+        double averageLoadMillis
+) {
+}
@@ -0,0 +1,18 @@
+package com.example.currencyfetcher.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Single conversion inside a batch request")
+public record ConversionRequestDto(
+
+        @Schema(description = "Currency code to convert from", example = "USD")
+        String from,
+
+        @Schema(description = "Currency code to convert to", example = "EUR")
+        String to,
+
+        @Schema(description = "Amount to convert", example = "100.00")
+        BigDecimal amount
+) {}
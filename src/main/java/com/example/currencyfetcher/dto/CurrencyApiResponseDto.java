@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Map;
 
 @Schema(description = "DTO for response from external exchange API")
@@ -15,5 +16,25 @@ public record CurrencyApiResponseDto(
 
         @JsonProperty("conversion_rates")
         @Schema(description = "Map of currency codes to exchange rates")
-        Map<String, BigDecimal> conversionRates
-) {}
+        Map<String, BigDecimal> conversionRates,
+
+        @JsonProperty("time_last_update_unix")
+        @Schema(description = "When the provider last published these rates (epoch seconds)", example = "1754352001")
+        Long timeLastUpdateUnix,
+
+        @JsonProperty("time_next_update_unix")
+        @Schema(description = "When the provider will publish the next rates (epoch seconds)", example = "1754438401")
+        Long timeNextUpdateUnix
+) {
+
+    public CurrencyApiResponseDto(String baseCode, Map<String, BigDecimal> conversionRates) {
+        this(baseCode, conversionRates, null, null);
+    }
+
+    /**
+     * @return the provider's next publication time, or {@code null} when it did not advertise one
+     */
+    public Instant nextUpdate() {
+        return timeNextUpdateUnix == null ? null : Instant.ofEpochSecond(timeNextUpdateUnix);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.currencyfetcher.dto;
+
+import com.example.currencyfetcher.model.CandleGranularity;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Schema(description = "Open/high/low/close rates of a currency over one hour or one day")
+public record CurrencyCandleDto(
+        @Schema(description = "Currency code", example = "JPY")
+        String currencyCode,
+
+        @Schema(description = "Candle size", example = "HOUR")
+        CandleGranularity granularity,
+
+        @Schema(description = "Start of the bucket this candle covers")
+        LocalDateTime bucketStart,
+
+        @Schema(description = "First rate in the bucket", example = "148.50")
+        BigDecimal open,
+
+        @Schema(description = "Highest rate in the bucket", example = "148.92")
+        BigDecimal high,
+
+        @Schema(description = "Lowest rate in the bucket", example = "148.11")
+        BigDecimal low,
+
+        @Schema(description = "Last rate in the bucket", example = "148.77")
+        BigDecimal close
+) {}
@@ -0,0 +1,16 @@
+package com.example.currencyfetcher.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "One keyset page of historical rates")
+public record HistoryPageDto(
+
+        @Schema(description = "Rates in this page, newest first")
+        List<CurrencyRateHistoryDto> items,
+
+        @Schema(description = "Cursor for the next (older) page, or null when this is the last page")
+        LocalDateTime nextCursor
+) {}
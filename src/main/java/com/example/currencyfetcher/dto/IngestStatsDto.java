@@ -0,0 +1,27 @@
+package com.example.currencyfetcher.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Counters of the ingest pipeline since startup")
+public record IngestStatsDto(
+
+        @Schema(description = "HTTP calls sent to the exchange API, retries included", example = "42")
+        long providerCalls,
+
+        @Schema(description = "Calls answered 304 Not Modified (no body transferred)", example = "30")
+        long notModified,
+
+        @Schema(description = "Scheduled polls skipped because the provider had not published new rates yet", example = "1380")
+        long pollsSkipped,
+
+        @Schema(description = "Fetches that returned rates already ingested", example = "31")
+        long unchangedFetches,
+
+        @Schema(description = "History rows written", example = "1630")
+        long rowsWritten,
+
+        @Schema(description = "History rows not written thanks to skipped polls, unchanged fetches and change-only persistence",
+                example = "230000")
+        long rowsSaved
+) {
+}
@@ -0,0 +1,52 @@
+package com.example.currencyfetcher.exceptions;
+
+import com.example.currencyfetcher.dto.ErrorResponseDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.Instant;
+
+/**
+ * Reactive counterpart of {@link GlobalExceptionHandler}, producing the same {@link ErrorResponseDto} bodies.
+ */
+@Slf4j
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(InvalidCurrencyException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidCurrency(
+            InvalidCurrencyException ex,
+            ServerHttpRequest request) {
+
+        log.error("Invalid currency: {}", ex.getMessage());
+        return error(HttpStatus.BAD_REQUEST, "Invalid Currency", ex, request);
+    }
+
+    @ExceptionHandler(ExternalServiceException.class)
+    public ResponseEntity<ErrorResponseDto> handleExternalServiceFailure(
+            ExternalServiceException ex,
+            ServerHttpRequest request) {
+
+        log.error("External service failure: {}", ex.getMessage(), ex);
+        return error(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ex, request);
+    }
+
+    private ResponseEntity<ErrorResponseDto> error(HttpStatus status, String title, Exception ex,
+                                                   ServerHttpRequest request) {
+        return ResponseEntity
+                .status(status)
+                .body(new ErrorResponseDto(
+                        Instant.now(),
+                        status.value(),
+                        title,
+                        ex.getMessage(),
+                        request.getPath().value()
+                ));
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.currencyfetcher.history;
+
+import com.example.currencyfetcher.config.HistoryProperties;
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.util.FixedPoint;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * The history in one {@link RateSeriesFile} per currency under {@code currency.history.directory}, outside the
+ * database, so it survives restarts of the in-memory H2. Writes append two longs to a mapped segment and reads
+ * bisect the file and decode rates straight from the mapping, with no entity or result set in between.
+ * Reopening maps the files and finds their ends without reading them. Records are flushed by the OS, or on
+ * shutdown, so they survive a crash of the process but not necessarily a power loss.
+ * <p>
+ * Appends are not part of the ingest transaction: a rate written before the transaction rolls back stays, and
+ * writing it again is a no-op, since a series only accepts timestamps after its newest one.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "currency.history", name = "storage", havingValue = "mapped")
+public class MappedFileRateHistoryStore implements RateHistoryStore {
+
+    static final int SEGMENT_BYTES = 256 * 1024; // 16,383 records, about 11 days at one tick a minute
+
+    private static final String SUFFIX = ".rates";
+    private static final Pattern CODE = Pattern.compile("[A-Z0-9]{3}");
+    private static final int STREAM_CHUNK = 1_000;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final Map<String, RateSeriesFile> series = new ConcurrentHashMap<>();
+    private final ReentrantLock opening = new ReentrantLock();
+
+    @Autowired
+    public MappedFileRateHistoryStore(HistoryProperties properties) {
+        this(properties.getDirectory(), SEGMENT_BYTES);
+    }
+
+    MappedFileRateHistoryStore(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                series.put(name.substring(0, name.length() - SUFFIX.length()), RateSeriesFile.open(file, segmentBytes));
+            }
+        }
+        log.info("Opened {} rate series in {} in {} ms", series.size(), directory.toAbsolutePath(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (RateSeriesFile file : series.values()) {
+            file.close();
+        }
+        series.clear();
+    }
+
+    @Override
+    public int insertAll(Collection<CurrencyRate> rates) {
+        int appended = 0;
+        for (CurrencyRate rate : rates) {
+            if (series(rate.getCurrencyCode()).append(toMillis(rate.getTimestamp()), FixedPoint.toUnits(rate.getRate()))) {
+                appended++;
+            }
+        }
+        return appended;
+    }
+
+    @Override
+    public List<CurrencyRate> findUpTo(String code, LocalDateTime from, LocalDateTime to, int limit) {
+        return read(code, from, to, true, limit);
+    }
+
+    @Override
+    public List<CurrencyRate> findBefore(String code, LocalDateTime from, LocalDateTime before, int limit) {
+        return read(code, from, before, false, limit);
+    }
+
+    /**
+     * Reads in keyset chunks, so the series lock is never held while {@code sink} writes out.
+     */
+    @Override
+    public void stream(String code, LocalDateTime from, LocalDateTime to, Consumer<CurrencyRate> sink) {
+        List<CurrencyRate> chunk = read(code, from, to, true, STREAM_CHUNK);
+        while (!chunk.isEmpty()) {
+            chunk.forEach(sink);
+            if (chunk.size() < STREAM_CHUNK) {
+                break;
+            }
+            chunk = read(code, from, chunk.get(chunk.size() - 1).getTimestamp(), false, STREAM_CHUNK);
+        }
+    }
+
+    @Override
+    public Optional<CurrencyRate> findEffectiveAt(String code, LocalDateTime timestamp) {
+        return read(code, LocalDateTime.MIN, timestamp, true, 1).stream().findFirst();
+    }
+
+    @Override
+    public List<CurrencyRate> findNewestPerCurrency() {
+        List<CurrencyRate> newest = new ArrayList<>(series.size());
+        series.forEach((code, file) -> file.readDescending(Long.MIN_VALUE, Long.MAX_VALUE, true, 1,
+                (millis, units) -> newest.add(toRate(code, millis, units))));
+        return newest;
+    }
+
+    @Override
+    public LocalDateTime findOldestTimestamp() {
+        OptionalLong oldest = series.values().stream()
+                .mapToLong(RateSeriesFile::oldestMillis)
+                .filter(millis -> millis != 0)
+                .min();
+        return oldest.isPresent() ? toTimestamp(oldest.getAsLong()) : null;
+    }
+
+    /**
+     * Each call rewrites the currency's file once, however many records it removes.
+     */
+    @Override
+    public int thin(String code, LocalDateTime from, LocalDateTime to, CandleGranularity granularity, int limit) {
+        RateSeriesFile file = series.get(code);
+        if (file == null) {
+            return 0;
+        }
+        return file.retain(toMillis(from), toMillis(to), window -> {
+            BitSet keep = new BitSet(window.length);
+            int removed = 0;
+            for (int i = 0; i < window.length; i++) {
+                boolean lastOfBucket = i == window.length - 1
+                        || !granularity.bucketStart(toTimestamp(window[i])).equals(granularity.bucketStart(toTimestamp(window[i + 1])));
+                if (lastOfBucket || removed == limit) {
+                    keep.set(i);
+                } else {
+                    removed++;
+                }
+            }
+            return keep;
+        });
+    }
+
+    /**
+     * Thins the whole range in a single rewrite of the file, rather than one per day; {@code limit} does not apply.
+     */
+    @Override
+    public void thinRange(String code, LocalDateTime from, LocalDateTime to, CandleGranularity granularity,
+                          int limit, IntConsumer calls) {
+        calls.accept(thin(code, from, to, granularity, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Rewrites each file without its records before {@code cutoff}; {@code batchSize} does not apply.
+     */
+    @Override
+    public long dropBefore(LocalDateTime cutoff, int batchSize) {
+        long dropped = 0;
+        for (RateSeriesFile file : series.values()) {
+            dropped += file.retain(Long.MIN_VALUE, toMillis(cutoff), window -> new BitSet());
+        }
+        return dropped;
+    }
+
+    private List<CurrencyRate> read(String code, LocalDateTime from, LocalDateTime upper, boolean inclusive, int limit) {
+        RateSeriesFile file = series.get(code);
+        if (file == null) {
+            return List.of();
+        }
+        List<CurrencyRate> rows = new ArrayList<>(Math.min(limit, STREAM_CHUNK));
+        file.readDescending(toMillis(from), toMillis(upper), inclusive, limit,
+                (millis, units) -> rows.add(toRate(code, millis, units)));
+        return rows;
+    }
+
+    private RateSeriesFile series(String code) {
+        if (!CODE.matcher(code).matches()) {
+            throw new IllegalArgumentException("Not a currency code: " + code);
+        }
+        RateSeriesFile file = series.get(code);
+        if (file != null) {
+            return file;
+        }
+        // Opening creates and maps a file, so it runs under a lock (which parks a virtual thread without pinning
+        // its carrier) and outside the map.
+        opening.lock();
+        try {
+            file = series.get(code);
+            if (file == null) {
+                file = RateSeriesFile.open(directory.resolve(code + SUFFIX), segmentBytes);
+                series.put(code, file);
+            }
+            return file;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            opening.unlock();
+        }
+    }
+
+    private static CurrencyRate toRate(String code, long millis, long units) {
+        return new CurrencyRate(code, FixedPoint.toDecimal(units), toTimestamp(millis));
+    }
+
+    /**
+     * Saturates at the {@code long} range, so {@link LocalDateTime#MIN} and {@code MAX} work as open bounds.
+     */
+    private static long toMillis(LocalDateTime timestamp) {
+        try {
+            return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (ArithmeticException ex) {
+            return timestamp.getYear() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    private static LocalDateTime toTimestamp(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+}
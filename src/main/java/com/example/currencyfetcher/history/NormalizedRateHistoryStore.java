@@ -0,0 +1,247 @@
+package com.example.currencyfetcher.history;
+
+import com.example.currencyfetcher.config.CurrencyApiProperties;
+import com.example.currencyfetcher.config.IngestProperties;
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.util.FixedPoint;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * The history as one {@code rate_batches} row per fetch (timestamp, source, base) and one {@code batch_rates}
+ * row per rate keyed by {@code (batch_id, currency_id)}, with the rate in fixed-point units. A tick stores its
+ * timestamp once instead of on each of its ~160 rows, and no row carries a currency code, so a rate costs three
+ * fixed-width columns. Range queries walk the batch timestamp index and probe the rates primary key.
+ * <p>
+ * Currency ids are assigned in their own transaction and cached, so a rolled back ingest never leaves an id in
+ * the cache that the table does not have.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "currency.history", name = "storage", havingValue = "normalized")
+public class NormalizedRateHistoryStore implements RateHistoryStore {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String SELECT = "SELECT b.timestamp, r.units FROM rate_batches b "
+            + "JOIN batch_rates r ON r.batch_id = b.id WHERE r.currency_id = ? ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate keyTransaction;
+    private final String source;
+    private final String base;
+    private final Map<String, Short> currencyIds = new ConcurrentHashMap<>();
+    private final ReentrantLock assigning = new ReentrantLock();
+
+    public NormalizedRateHistoryStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      CurrencyApiProperties apiProperties, IngestProperties ingestProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.keyTransaction = new TransactionTemplate(transactionManager);
+        this.keyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.source = sourceOf(apiProperties.getBaseUrl());
+        // History rows are quoted against the primary base; the others only feed the cross-rate table.
+        this.base = ingestProperties.getBases().get(0).toUpperCase();
+    }
+
+    @PostConstruct
+    public void loadCurrencyIds() {
+        jdbcTemplate.query("SELECT code, id FROM currency_keys",
+                (RowCallbackHandler) rs -> currencyIds.put(rs.getString(1), rs.getShort(2)));
+        log.info("Loaded {} currency ids", currencyIds.size());
+    }
+
+    @Override
+    public int insertAll(Collection<CurrencyRate> rates) {
+        Map<LocalDateTime, List<CurrencyRate>> byTimestamp = rates.stream()
+                .collect(Collectors.groupingBy(CurrencyRate::getTimestamp, TreeMap::new, Collectors.toList()));
+        byTimestamp.forEach((timestamp, rows) -> {
+            long batchId = batchId(timestamp);
+            jdbcTemplate.batchUpdate("INSERT INTO batch_rates (batch_id, currency_id, units) VALUES (?, ?, ?)",
+                    rows, BATCH_SIZE, (ps, rate) -> {
+                        ps.setLong(1, batchId);
+                        ps.setShort(2, currencyId(rate.getCurrencyCode()));
+                        ps.setLong(3, FixedPoint.toUnits(rate.getRate()));
+                    });
+        });
+        return rates.size();
+    }
+
+    @Override
+    public List<CurrencyRate> findUpTo(String code, LocalDateTime from, LocalDateTime to, int limit) {
+        return page(code, "<=", from, to, limit);
+    }
+
+    @Override
+    public List<CurrencyRate> findBefore(String code, LocalDateTime from, LocalDateTime before, int limit) {
+        return page(code, "<", from, before, limit);
+    }
+
+    @Override
+    public void stream(String code, LocalDateTime from, LocalDateTime to, Consumer<CurrencyRate> sink) {
+        Short id = currencyIds.get(code);
+        if (id == null) {
+            return;
+        }
+        RowMapper<CurrencyRate> mapper = rowMapper(code);
+        jdbcTemplate.query(SELECT + "AND b.timestamp >= ? AND b.timestamp <= ? ORDER BY b.timestamp DESC",
+                (RowCallbackHandler) rs -> sink.accept(mapper.mapRow(rs, 0)), id, from, to);
+    }
+
+    @Override
+    public Optional<CurrencyRate> findEffectiveAt(String code, LocalDateTime timestamp) {
+        Short id = currencyIds.get(code);
+        if (id == null) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.query(SELECT + "AND b.timestamp <= ? ORDER BY b.timestamp DESC FETCH FIRST 1 ROWS ONLY",
+                rowMapper(code), id, timestamp).stream().findFirst();
+    }
+
+    @Override
+    public List<CurrencyRate> findNewestPerCurrency() {
+        return jdbcTemplate.query("SELECT k.code, b.timestamp, r.units FROM batch_rates r "
+                        + "JOIN rate_batches b ON b.id = r.batch_id "
+                        + "JOIN currency_keys k ON k.id = r.currency_id "
+                        + "JOIN (SELECT r2.currency_id, MAX(b2.timestamp) AS newest FROM batch_rates r2 "
+                        + "JOIN rate_batches b2 ON b2.id = r2.batch_id GROUP BY r2.currency_id) n "
+                        + "ON n.currency_id = r.currency_id AND n.newest = b.timestamp",
+                (rs, rowNum) -> new CurrencyRate(rs.getString(1), FixedPoint.toDecimal(rs.getLong(3)),
+                        rs.getObject(2, LocalDateTime.class)));
+    }
+
+    @Override
+    public LocalDateTime findOldestTimestamp() {
+        // Batches emptied by retention are removed with their last rate, so every batch still holds rows.
+        return jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM rate_batches", LocalDateTime.class);
+    }
+
+    @Override
+    public int thin(String code, LocalDateTime from, LocalDateTime to, CandleGranularity granularity, int limit) {
+        Short id = currencyIds.get(code);
+        if (id == null) {
+            return 0;
+        }
+        Integer deleted = writeTransaction.execute(status -> {
+            int rows = jdbcTemplate.update("DELETE FROM batch_rates WHERE currency_id = ? "
+                            + "AND batch_id IN (SELECT id FROM rate_batches WHERE timestamp >= ? AND timestamp < ?) "
+                            + "AND batch_id NOT IN (SELECT id FROM rate_batches WHERE timestamp IN ("
+                            + "SELECT MAX(b.timestamp) FROM rate_batches b JOIN batch_rates r ON r.batch_id = b.id "
+                            + "WHERE r.currency_id = ? AND b.timestamp >= ? AND b.timestamp < ? "
+                            + "GROUP BY DATE_TRUNC('" + granularity.name() + "', b.timestamp))) FETCH FIRST ? ROWS ONLY",
+                    id, from, to, id, from, to, limit);
+            if (rows > 0) {
+                deleteEmptyBatches("timestamp >= ? AND timestamp < ?", from, to);
+            }
+            return rows;
+        });
+        return deleted == null ? 0 : deleted;
+    }
+
+    @Override
+    public long dropBefore(LocalDateTime cutoff, int batchSize) {
+        long deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update("DELETE FROM batch_rates "
+                    + "WHERE batch_id IN (SELECT id FROM rate_batches WHERE timestamp < ?) FETCH FIRST ? ROWS ONLY",
+                    cutoff, batchSize);
+            deleted += batch;
+        } while (batch == batchSize);
+        deleteEmptyBatches("timestamp < ?", cutoff);
+        return deleted;
+    }
+
+    private List<CurrencyRate> page(String code, String upperBound, LocalDateTime from, LocalDateTime upper, int limit) {
+        Short id = currencyIds.get(code);
+        if (id == null) {
+            return List.of();
+        }
+        return jdbcTemplate.query(SELECT + "AND b.timestamp >= ? AND b.timestamp " + upperBound + " ? "
+                        + "ORDER BY b.timestamp DESC FETCH FIRST ? ROWS ONLY",
+                rowMapper(code), id, from, upper, limit);
+    }
+
+    private void deleteEmptyBatches(String window, Object... args) {
+        jdbcTemplate.update("DELETE FROM rate_batches WHERE " + window
+                + " AND NOT EXISTS (SELECT 1 FROM batch_rates r WHERE r.batch_id = rate_batches.id)", args);
+    }
+
+    /**
+     * Rates of one timestamp share a batch, also when they arrive in more than one call.
+     */
+    private long batchId(LocalDateTime timestamp) {
+        List<Long> existing = jdbcTemplate.queryForList(
+                "SELECT id FROM rate_batches WHERE timestamp = ?", Long.class, timestamp);
+        if (!existing.isEmpty()) {
+            return existing.get(0);
+        }
+        KeyHolder key = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO rate_batches (timestamp, source, base) VALUES (?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+            ps.setObject(1, timestamp);
+            ps.setString(2, source);
+            ps.setString(3, base);
+            return ps;
+        }, key);
+        return Objects.requireNonNull(key.getKey()).longValue();
+    }
+
+    private short currencyId(String code) {
+        Short id = currencyIds.get(code);
+        if (id != null) {
+            return id;
+        }
+        // The id is assigned in its own transaction; the lock parks a virtual thread without pinning its carrier.
+        assigning.lock();
+        try {
+            id = currencyIds.get(code);
+            if (id != null) {
+                return id;
+            }
+            Short assigned = keyTransaction.execute(status -> {
+                jdbcTemplate.update("MERGE INTO currency_keys (code) KEY (code) VALUES (?)", code);
+                return jdbcTemplate.queryForObject("SELECT id FROM currency_keys WHERE code = ?", Short.class, code);
+            });
+            currencyIds.put(code, Objects.requireNonNull(assigned));
+            return assigned;
+        } finally {
+            assigning.unlock();
+        }
+    }
+
+    private static RowMapper<CurrencyRate> rowMapper(String code) {
+        return (rs, rowNum) -> new CurrencyRate(code, FixedPoint.toDecimal(rs.getLong(2)),
+                rs.getObject(1, LocalDateTime.class));
+    }
+
+    private static String sourceOf(String baseUrl) {
+        if (baseUrl == null || baseUrl.isBlank()) {
+            return "unknown";
+        }
+        String host = URI.create(baseUrl).getHost();
+        return host != null ? host : baseUrl;
+    }
+}
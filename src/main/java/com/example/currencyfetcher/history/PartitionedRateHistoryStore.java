@@ -0,0 +1,227 @@
+package com.example.currencyfetcher.history;
+
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyRate;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The history split into one table per calendar month ({@code currency_rates_p202501}, ...), each with the
+ * primary key {@code (currency_code, timestamp)}. Queries only visit the partitions that overlap their window,
+ * newest first, and stop as soon as the page is full, so a recent window costs the same however many months
+ * are stored. Retention drops whole partitions instead of deleting their rows.
+ * <p>
+ * Partitions are created on first write. DDL commits implicitly in H2, so it runs in its own transaction and
+ * never commits the ingest transaction half-way.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "currency.history", name = "storage", havingValue = "partitioned")
+public class PartitionedRateHistoryStore implements RateHistoryStore {
+
+    private static final String PREFIX = "currency_rates_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("(?i)" + PREFIX + "(\\d{6})");
+    private static final int BATCH_SIZE = 500;
+    private static final String COLUMNS = "currency_code, timestamp, rate";
+    private static final RowMapper<CurrencyRate> ROW_MAPPER = (rs, rowNum) -> new CurrencyRate(
+            rs.getString(1), rs.getBigDecimal(3), rs.getObject(2, LocalDateTime.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ddlTransaction;
+    private final ConcurrentSkipListMap<YearMonth, String> partitions = new ConcurrentSkipListMap<>();
+    private final ReentrantLock creating = new ReentrantLock();
+
+    public PartitionedRateHistoryStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ddlTransaction = new TransactionTemplate(transactionManager);
+        this.ddlTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void loadPartitions() {
+        jdbcTemplate.queryForList("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES "
+                        + "WHERE TABLE_SCHEMA = CURRENT_SCHEMA AND TABLE_NAME LIKE 'CURRENCY_RATES_P%'", String.class)
+                .forEach(table -> {
+                    Matcher matcher = PARTITION_NAME.matcher(table);
+                    if (matcher.matches()) {
+                        partitions.put(YearMonth.parse(matcher.group(1), SUFFIX), table);
+                    }
+                });
+        log.info("Found {} monthly history partitions", partitions.size());
+    }
+
+    @Override
+    public int insertAll(Collection<CurrencyRate> rates) {
+        Map<YearMonth, List<CurrencyRate>> byMonth = rates.stream()
+                .collect(Collectors.groupingBy(rate -> YearMonth.from(rate.getTimestamp()), TreeMap::new, Collectors.toList()));
+        byMonth.forEach((month, rows) -> jdbcTemplate.batchUpdate(
+                "INSERT INTO " + partition(month) + " (" + COLUMNS + ") VALUES (?, ?, ?)",
+                rows, BATCH_SIZE, (ps, rate) -> {
+                    ps.setString(1, rate.getCurrencyCode());
+                    ps.setObject(2, rate.getTimestamp());
+                    ps.setBigDecimal(3, rate.getRate());
+                }));
+        return rates.size();
+    }
+
+    @Override
+    public List<CurrencyRate> findUpTo(String code, LocalDateTime from, LocalDateTime to, int limit) {
+        return page(code, from, "<=", to, limit);
+    }
+
+    @Override
+    public List<CurrencyRate> findBefore(String code, LocalDateTime from, LocalDateTime before, int limit) {
+        return page(code, from, "<", before, limit);
+    }
+
+    @Override
+    public void stream(String code, LocalDateTime from, LocalDateTime to, Consumer<CurrencyRate> sink) {
+        for (String table : overlapping(from, to)) {
+            jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + table
+                            + " WHERE currency_code = ? AND timestamp >= ? AND timestamp <= ? ORDER BY timestamp DESC",
+                    (RowCallbackHandler) rs -> sink.accept(ROW_MAPPER.mapRow(rs, 0)), code, from, to);
+        }
+    }
+
+    @Override
+    public Optional<CurrencyRate> findEffectiveAt(String code, LocalDateTime timestamp) {
+        // Heartbeat rows keep the newest row close, so this rarely goes past the first partition.
+        for (String table : partitions.headMap(YearMonth.from(timestamp), true).descendingMap().values()) {
+            List<CurrencyRate> rows = jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + table
+                            + " WHERE currency_code = ? AND timestamp <= ? ORDER BY timestamp DESC FETCH FIRST 1 ROWS ONLY",
+                    ROW_MAPPER, code, timestamp);
+            if (!rows.isEmpty()) {
+                return Optional.of(rows.get(0));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List<CurrencyRate> findNewestPerCurrency() {
+        Map<String, CurrencyRate> newest = new HashMap<>();
+        for (String table : partitions.descendingMap().values()) {
+            jdbcTemplate.query("SELECT r.currency_code, r.timestamp, r.rate FROM " + table + " r "
+                            + "JOIN (SELECT currency_code, MAX(timestamp) AS newest FROM " + table
+                            + " GROUP BY currency_code) n ON r.currency_code = n.currency_code AND r.timestamp = n.newest",
+                    ROW_MAPPER).forEach(rate -> newest.putIfAbsent(rate.getCurrencyCode(), rate));
+        }
+        return List.copyOf(newest.values());
+    }
+
+    @Override
+    public LocalDateTime findOldestTimestamp() {
+        for (String table : partitions.values()) {
+            LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM " + table, LocalDateTime.class);
+            if (oldest != null) {
+                return oldest;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hours and days never span two months, so each partition is thinned on its own.
+     */
+    @Override
+    public int thin(String code, LocalDateTime from, LocalDateTime to, CandleGranularity granularity, int limit) {
+        int deleted = 0;
+        for (String table : overlapping(from, to.minusNanos(1))) {
+            deleted += jdbcTemplate.update("DELETE FROM " + table
+                            + " WHERE currency_code = ? AND timestamp >= ? AND timestamp < ? "
+                            + "AND timestamp NOT IN (SELECT MAX(timestamp) FROM " + table
+                            + " WHERE currency_code = ? AND timestamp >= ? AND timestamp < ? "
+                            + "GROUP BY DATE_TRUNC('" + granularity.name() + "', timestamp)) FETCH FIRST ? ROWS ONLY",
+                    code, from, to, code, from, to, limit - deleted);
+            if (deleted == limit) break;
+        }
+        return deleted;
+    }
+
+    /**
+     * Drops every partition that ends before {@code cutoff}. Rows of the month {@code cutoff} falls in are kept
+     * until that whole month is past it.
+     */
+    @Override
+    public long dropBefore(LocalDateTime cutoff, int batchSize) {
+        long dropped = 0;
+        for (Map.Entry<YearMonth, String> partition : partitions.headMap(YearMonth.from(cutoff), false).entrySet()) {
+            String table = partition.getValue();
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+            ddlTransaction.executeWithoutResult(status -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + table));
+            partitions.remove(partition.getKey());
+            dropped += rows == null ? 0 : rows;
+            log.info("Dropped history partition {} ({} rows)", table, rows);
+        }
+        return dropped;
+    }
+
+    /**
+     * @return partitions overlapping {@code [from, to]}, newest first
+     */
+    Collection<String> overlapping(LocalDateTime from, LocalDateTime to) {
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(to);
+        if (first.isAfter(last)) {
+            return List.of();
+        }
+        return partitions.subMap(first, true, last, true).descendingMap().values();
+    }
+
+    private List<CurrencyRate> page(String code, LocalDateTime from, String upperBound, LocalDateTime upper, int limit) {
+        List<CurrencyRate> rows = new ArrayList<>(Math.min(limit, 1_000));
+        for (String table : overlapping(from, upper)) {
+            rows.addAll(jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + table
+                            + " WHERE currency_code = ? AND timestamp >= ? AND timestamp " + upperBound + " ? "
+                            + "ORDER BY timestamp DESC FETCH FIRST ? ROWS ONLY",
+                    ROW_MAPPER, code, from, upper, limit - rows.size()));
+            if (rows.size() == limit) break;
+        }
+        return rows;
+    }
+
+    private String partition(YearMonth month) {
+        String table = partitions.get(month);
+        if (table != null) {
+            return table;
+        }
+        // The DDL blocks on the database, so it runs under a lock (which parks a virtual thread without pinning
+        // its carrier) and outside the map, and the partition only becomes visible once its table exists.
+        creating.lock();
+        try {
+            table = partitions.get(month);
+            if (table != null) {
+                return table;
+            }
+            String name = PREFIX + month.format(SUFFIX);
+            ddlTransaction.executeWithoutResult(status -> jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name
+                    + " (currency_code VARCHAR(3) NOT NULL, timestamp TIMESTAMP(6) NOT NULL, "
+                    + "rate NUMERIC(19, 4) NOT NULL, PRIMARY KEY (currency_code, timestamp))"));
+            partitions.put(month, name);
+            log.info("Created history partition {}", name);
+            return name;
+        } finally {
+            creating.unlock();
+        }
+    }
+}
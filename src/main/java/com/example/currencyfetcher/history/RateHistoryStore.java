@@ -0,0 +1,85 @@
+package com.example.currencyfetcher.history;
+
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyRate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Storage of the rate history, selected by {@code currency.history.storage}. Every query is for one currency
+ * and returns rows newest first.
+ */
+public interface RateHistoryStore {
+
+    /**
+     * @return number of rows inserted
+     */
+    int insertAll(Collection<CurrencyRate> rates);
+
+    /**
+     * First keyset page: rows in {@code [from, to]}.
+     */
+    List<CurrencyRate> findUpTo(String code, LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Later keyset pages: rows in {@code [from, before)}.
+     */
+    List<CurrencyRate> findBefore(String code, LocalDateTime from, LocalDateTime before, int limit);
+
+    /**
+     * Passes every row in {@code [from, to]} to {@code sink} without holding the window in memory.
+     */
+    void stream(String code, LocalDateTime from, LocalDateTime to, Consumer<CurrencyRate> sink);
+
+    /**
+     * @return the rate in effect at {@code timestamp}, i.e. the newest row at or before it
+     */
+    Optional<CurrencyRate> findEffectiveAt(String code, LocalDateTime timestamp);
+
+    /**
+     * @return the newest row of every currency
+     */
+    List<CurrencyRate> findNewestPerCurrency();
+
+    /**
+     * @return timestamp of the oldest row, or {@code null} when there is none
+     */
+    LocalDateTime findOldestTimestamp();
+
+    /**
+     * Deletes at most {@code limit} rows of a currency in {@code [from, to)} that are not the last row of their
+     * hour or day.
+     *
+     * @return number of rows deleted; fewer than {@code limit} once the window is fully thinned
+     */
+    int thin(String code, LocalDateTime from, LocalDateTime to, CandleGranularity granularity, int limit);
+
+    /**
+     * Thins all of {@code [from, to)} with {@link #thin} calls of one day and at most {@code limit} rows each,
+     * so no statement runs long, passing the rows each call deleted to {@code calls}.
+     */
+    default void thinRange(String code, LocalDateTime from, LocalDateTime to, CandleGranularity granularity,
+                           int limit, IntConsumer calls) {
+        for (LocalDateTime day = from; day.isBefore(to); day = day.plusDays(1)) {
+            LocalDateTime end = day.plusDays(1).isAfter(to) ? to : day.plusDays(1);
+            int deleted;
+            do {
+                deleted = thin(code, day, end, granularity, limit);
+                calls.accept(deleted);
+            } while (deleted == limit);
+        }
+    }
+
+    /**
+     * Removes rows older than {@code cutoff}, at most {@code batchSize} rows per statement where rows are
+     * deleted one by one.
+     *
+     * @return number of rows removed
+     */
+    long dropBefore(LocalDateTime cutoff, int batchSize);
+}
@@ -0,0 +1,301 @@
+package com.example.currencyfetcher.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * The history of one currency as an append-only file of fixed-width records, read and written through
+ * memory-mapped segments. A 16-byte header (magic, version, record size) is followed by 16-byte records of
+ * {@code epochMillis, units}, strictly increasing in time. The file grows a segment at a time and the unused
+ * part of the last segment reads as zeros, which marks the end of the data.
+ * <p>
+ * Reopening finds the end with a binary search instead of a scan. Appends are not forced to the device: the
+ * dirty pages belong to the OS, so a crash of the process loses nothing, but a power loss can lose recent
+ * records in any order, and the search assumes the persisted records are contiguous. Only {@link #close()} and
+ * the rewrites of retention force the file. As a sanity check on reopen, trailing records whose timestamp is not
+ * after the previous one are cleared.
+ * <p>
+ * Removing records rewrites the file in place through the existing mappings, since Java cannot unmap a segment
+ * and swapping the file would leave the old mappings alive until they are collected. The file keeps its size and
+ * later appends reuse the freed space. The new content is first committed to a redo file next to the series;
+ * a rewrite interrupted by a crash is completed from it on the next open.
+ */
+final class RateSeriesFile implements Closeable {
+
+    static final int RECORD_BYTES = 16;
+
+    private static final int MAGIC = 0x43465253; // "CFRS"
+    private static final int VERSION = 1;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String REDO_SUFFIX = ".redo";
+
+    private final Path path;
+    private final int segmentBytes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private FileChannel channel;
+    private int count;
+
+    private RateSeriesFile(Path path, int segmentBytes) {
+        this.path = path;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * @param segmentBytes mapping and growth step, a multiple of {@link #RECORD_BYTES}
+     */
+    static RateSeriesFile open(Path path, int segmentBytes) throws IOException {
+        Path redo = sibling(path, REDO_SUFFIX);
+        if (Files.exists(redo)) {
+            Files.move(redo, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.deleteIfExists(sibling(path, TEMP_SUFFIX));
+        RateSeriesFile file = new RateSeriesFile(path, segmentBytes);
+        file.map();
+        return file;
+    }
+
+    /**
+     * @return {@code false} when {@code epochMillis} is not after the newest record, which is then kept
+     */
+    boolean append(long epochMillis, long units) {
+        if (epochMillis <= 0) {
+            throw new IllegalArgumentException("Timestamps before 1970 cannot be stored: " + epochMillis);
+        }
+        lock.writeLock().lock();
+        try {
+            if (count > 0 && epochMillis <= millisAt(count - 1)) {
+                return false;
+            }
+            if (offset(count) + RECORD_BYTES > (long) segments.size() * segmentBytes) {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentBytes, segmentBytes));
+            }
+            write(count, epochMillis, units);
+            count++;
+            return true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records in {@code [fromMillis, upperMillis]}, or {@code [fromMillis, upperMillis)} when {@code inclusive} is
+     * false, newest first.
+     */
+    void readDescending(long fromMillis, long upperMillis, boolean inclusive, int limit, RecordSink sink) {
+        lock.readLock().lock();
+        try {
+            int high = inclusive ? countAtOrBefore(upperMillis) : countBefore(upperMillis);
+            int low = Math.max(countBefore(fromMillis), high - limit);
+            for (int i = high - 1; i >= low; i--) {
+                sink.accept(millisAt(i), unitsAt(i));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return timestamp of the oldest record, {@code 0} when there is none
+     */
+    long oldestMillis() {
+        lock.readLock().lock();
+        try {
+            return count == 0 ? 0 : millisAt(0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps every record outside {@code [fromMillis, toMillis)} and those inside it that {@code keep} selects.
+     * {@code keep} is given the timestamps of the window, oldest first, and returns the indexes to keep.
+     *
+     * @return number of records removed
+     */
+    int retain(long fromMillis, long toMillis, Function<long[], BitSet> keep) {
+        lock.writeLock().lock();
+        try {
+            int low = countBefore(fromMillis);
+            int high = countBefore(toMillis);
+            long[] window = new long[high - low];
+            for (int i = low; i < high; i++) {
+                window[i - low] = millisAt(i);
+            }
+            BitSet keptInWindow = keep.apply(window);
+            if (keptInWindow.cardinality() == window.length) {
+                return 0;
+            }
+            ByteBuffer kept = ByteBuffer.allocate((count + 1) * RECORD_BYTES);
+            header(kept);
+            for (int i = 0; i < count; i++) {
+                if (i < low || i >= high || keptInWindow.get(i - low)) {
+                    kept.putLong(millisAt(i)).putLong(unitsAt(i));
+                }
+            }
+            int removed = count - (kept.position() / RECORD_BYTES - 1);
+            replaceWith(kept.flip());
+            return removed;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes the mapped pages to the device.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            segments.forEach(MappedByteBuffer::force);
+            segments.clear();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        for (long position = 0; position < Math.max(size, 1); position += segmentBytes) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, segmentBytes));
+        }
+        MappedByteBuffer first = segments.get(0);
+        if (size == 0) {
+            header(first.duplicate());
+        } else if (first.getInt(0) != MAGIC || first.getInt(4) != VERSION || first.getInt(8) != RECORD_BYTES) {
+            channel.close();
+            throw new IOException("Not a rate series file: " + path);
+        }
+        count = recoverCount();
+    }
+
+    private int recoverCount() {
+        int capacity = (int) ((long) segments.size() * segmentBytes / RECORD_BYTES) - 1;
+        // Written records are non-zero and contiguous, so the first zero timestamp is found by bisection.
+        int low = 0;
+        int high = capacity;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (millisAt(mid) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = low;
+        while (end > 1 && millisAt(end - 1) <= millisAt(end - 2)) {
+            end--;
+        }
+        for (int i = end; i < low; i++) {
+            clear(i);
+        }
+        return end;
+    }
+
+    /**
+     * {@code content} holds the header and fewer records than the file, so it fits the current mappings.
+     */
+    private void replaceWith(ByteBuffer content) throws IOException {
+        Path temp = sibling(path, TEMP_SUFFIX);
+        Path redo = sibling(path, REDO_SUFFIX);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                out.write(content);
+            }
+            out.force(true);
+        }
+        Files.move(temp, redo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        int kept = content.limit() / RECORD_BYTES - 1;
+        for (int i = 0; i < kept; i++) {
+            write(i, content.getLong((int) offset(i)), content.getLong((int) offset(i) + 8));
+        }
+        for (int i = kept; i < count; i++) {
+            clear(i);
+        }
+        segments.forEach(MappedByteBuffer::force);
+        count = kept;
+        Files.delete(redo);
+    }
+
+    private static Path sibling(Path path, String suffix) {
+        return path.resolveSibling(path.getFileName() + suffix);
+    }
+
+    private int countBefore(long millis) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (millisAt(mid) < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int countAtOrBefore(long millis) {
+        return millis == Long.MAX_VALUE ? count : countBefore(millis + 1);
+    }
+
+    private long millisAt(int index) {
+        long offset = offset(index);
+        return segments.get((int) (offset / segmentBytes)).getLong((int) (offset % segmentBytes));
+    }
+
+    private long unitsAt(int index) {
+        long offset = offset(index) + 8;
+        return segments.get((int) (offset / segmentBytes)).getLong((int) (offset % segmentBytes));
+    }
+
+    private void write(int index, long epochMillis, long units) {
+        long offset = offset(index);
+        MappedByteBuffer segment = segments.get((int) (offset / segmentBytes));
+        int position = (int) (offset % segmentBytes);
+        segment.putLong(position + 8, units);
+        segment.putLong(position, epochMillis);
+    }
+
+    private void clear(int index) {
+        long offset = offset(index);
+        MappedByteBuffer segment = segments.get((int) (offset / segmentBytes));
+        segment.putLong((int) (offset % segmentBytes), 0);
+        segment.putLong((int) (offset % segmentBytes) + 8, 0);
+    }
+
+    private static long offset(int index) {
+        return (long) (index + 1) * RECORD_BYTES;
+    }
+
+    private static void header(ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(0);
+    }
+
+    @FunctionalInterface
+    interface RecordSink {
+        void accept(long epochMillis, long units);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.currencyfetcher.history;
+
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.repository.CurrencyRateRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The whole history in the single {@code currency_rates} table, indexed on {@code (currency_code, timestamp)}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "currency.history", name = "storage", havingValue = "table", matchIfMissing = true)
+@RequiredArgsConstructor
+public class TableRateHistoryStore implements RateHistoryStore {
+
+    private final CurrencyRateRepository repository;
+    private final EntityManager entityManager;
+
+    @Override
+    public int insertAll(Collection<CurrencyRate> rates) {
+        return repository.insertAll(rates);
+    }
+
+    @Override
+    public List<CurrencyRate> findUpTo(String code, LocalDateTime from, LocalDateTime to, int limit) {
+        return repository.findHistoryUpTo(code, from, to, Limit.of(limit));
+    }
+
+    @Override
+    public List<CurrencyRate> findBefore(String code, LocalDateTime from, LocalDateTime before, int limit) {
+        return repository.findHistoryBefore(code, from, before, Limit.of(limit));
+    }
+
+    /**
+     * Needs the caller's read-only transaction to keep the database cursor open.
+     */
+    @Override
+    public void stream(String code, LocalDateTime from, LocalDateTime to, Consumer<CurrencyRate> sink) {
+        try (Stream<CurrencyRate> rows = repository.streamHistory(code, from, to)) {
+            rows.forEach(rate -> {
+                sink.accept(rate);
+                entityManager.detach(rate); // keep the persistence context from growing with the stream
+            });
+        }
+    }
+
+    @Override
+    public Optional<CurrencyRate> findEffectiveAt(String code, LocalDateTime timestamp) {
+        return Optional.ofNullable(
+                repository.findTopByIdCurrencyCodeAndIdTimestampLessThanEqualOrderByIdTimestampDesc(code, timestamp));
+    }
+
+    @Override
+    public List<CurrencyRate> findNewestPerCurrency() {
+        return repository.findNewestPerCurrency();
+    }
+
+    @Override
+    public LocalDateTime findOldestTimestamp() {
+        return repository.findOldestTimestamp();
+    }
+
+    @Override
+    public int thin(String code, LocalDateTime from, LocalDateTime to, CandleGranularity granularity, int limit) {
+        return repository.thin(code, from, to, granularity, limit);
+    }
+
+    @Override
+    public long dropBefore(LocalDateTime cutoff, int batchSize) {
+        long deleted = 0;
+        int batch;
+        do {
+            batch = repository.deleteBefore(cutoff, batchSize);
+            deleted += batch;
+        } while (batch == batchSize);
+        return deleted;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.currencyfetcher.ingest;
+
+import com.example.currencyfetcher.config.IngestProperties;
+import com.example.currencyfetcher.model.CurrencyRate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which rates of a tick need a history row. With change-only persistence a row is written
+ * when the rate moved since the last persisted row, or when the heartbeat interval has passed, so the
+ * gap between two rows of a currency is bounded. Rows that are not written are still represented by
+ * the previous row, which stays the effective rate until the next one.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeOnlyFilter {
+
+    private final IngestProperties properties;
+
+    private final Map<String, CurrencyRate> lastPersisted = new ConcurrentHashMap<>();
+
+    public List<CurrencyRate> select(List<CurrencyRate> tick) {
+        if (!properties.isChangeOnly()) {
+            return tick;
+        }
+        Duration heartbeat = properties.getHeartbeatInterval();
+        return tick.stream()
+                .filter(rate -> {
+                    CurrencyRate previous = lastPersisted.get(rate.getCurrencyCode());
+                    return previous == null
+                            || previous.getRate().compareTo(rate.getRate()) != 0
+                            || !previous.getTimestamp().plus(heartbeat).isAfter(rate.getTimestamp());
+                })
+                .toList();
+    }
+
+    /**
+     * Records rows that were written. Inside a transaction they only count once it commits.
+     */
+    public void markPersisted(Collection<CurrencyRate> persisted) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(persisted);
+                }
+            });
+        } else {
+            record(persisted);
+        }
+    }
+
+    /**
+     * Starts from rows persisted before this instance came up, so a restart does not rewrite unchanged rates.
+     * Rows recorded since take precedence.
+     */
+    public void seed(Collection<CurrencyRate> persisted) {
+        persisted.forEach(rate -> lastPersisted.putIfAbsent(rate.getCurrencyCode(), rate));
+    }
+
+    private void record(Collection<CurrencyRate> persisted) {
+        persisted.forEach(rate -> lastPersisted.put(rate.getCurrencyCode(), rate));
+    }
+}
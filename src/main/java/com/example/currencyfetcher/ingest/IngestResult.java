@@ -0,0 +1,37 @@
+package com.example.currencyfetcher.ingest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Outcome of one fetch-and-persist run.
+ *
+ * @param fetched    rates received from the provider and ingested
+ * @param persisted  history rows written
+ * @param fetchTime  time spent calling the provider
+ * @param writeTime  time spent writing history rows
+ * @param unchanged  the provider answered with rates that were already ingested, so nothing was written
+ * @param nextUpdate when the provider advertised its next publication, or {@code null}
+ */
+public record IngestResult(int fetched,
+                           int persisted,
+                           Duration fetchTime,
+                           Duration writeTime,
+                           boolean unchanged,
+                           Instant nextUpdate) {
+
+    private static final IngestResult SKIPPED = new IngestResult(0, 0, Duration.ZERO, Duration.ZERO, false, null);
+
+    public static IngestResult skipped() {
+        return SKIPPED;
+    }
+
+    public static IngestResult unchanged(Duration fetchTime, Instant nextUpdate) {
+        return new IngestResult(0, 0, fetchTime, Duration.ZERO, true, nextUpdate);
+    }
+
+    public double rowsPerSecond() {
+        long nanos = writeTime.toNanos();
+        return nanos == 0 ? 0 : persisted * 1_000_000_000d / nanos;
+    }
+}
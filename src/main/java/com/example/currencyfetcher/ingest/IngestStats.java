@@ -0,0 +1,135 @@
+package com.example.currencyfetcher.ingest;
+
+import com.example.currencyfetcher.dto.IngestStatsDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts provider calls and history writes, including the ones avoided by conditional requests,
+ * adaptive polling and change-only persistence, and publishes them as {@code currency.ingest.*} and
+ * {@code currency.provider.*} meters together with fetch and write latencies.
+ */
+@Component
+public class IngestStats {
+
+    private final LongAdder providerCalls = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder pollsSkipped = new LongAdder();
+    private final LongAdder unchangedFetches = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder rowsSaved = new LongAdder();
+
+    private final MeterRegistry registry;
+    private final Counter providerRetries;
+    private final DistributionSummary batchSize;
+    private final Timer writeTimer;
+
+    private volatile long lastSuccessfulFetchMillis;
+
+    public IngestStats(MeterRegistry registry) {
+        this.registry = registry;
+        counter("currency.provider.calls", providerCalls, "Calls to the exchange provider, retries included");
+        counter("currency.provider.not.modified", notModified, "Provider calls answered with 304 Not Modified");
+        counter("currency.ingest.polls.skipped", pollsSkipped, "Polls skipped by the adaptive poll policy");
+        counter("currency.ingest.unchanged.fetches", unchangedFetches, "Fetches that returned already ingested rates");
+        counter("currency.ingest.rows.written", rowsWritten, "History rows written");
+        counter("currency.ingest.rows.saved", rowsSaved, "History rows avoided");
+
+        this.providerRetries = Counter.builder("currency.provider.retries")
+                .description("Provider calls retried after a failed attempt")
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("currency.ingest.batch.size")
+                .description("Rates per ingested tick")
+                .baseUnit("rates")
+                .register(registry);
+        this.writeTimer = Timer.builder("currency.ingest.write")
+                .description("Time to persist one tick, history rows, latest rates and candles in one transaction")
+                .register(registry);
+        Gauge.builder("currency.ingest.last.success.age", this, IngestStats::secondsSinceLastSuccessfulFetch)
+                .description("Seconds since rates were last fetched successfully; NaN until the first fetch")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    public void providerCall() {
+        providerCalls.increment();
+    }
+
+    public void providerRetry() {
+        providerRetries.increment();
+    }
+
+    /**
+     * Times one provider call for a base, retries included.
+     *
+     * @param outcome {@code success}, {@code error} or {@code cancelled}
+     */
+    public void providerFetch(String base, String outcome, long nanos) {
+        Timer.builder("currency.provider.fetch")
+                .description("Exchange provider call for one base, retries included")
+                .tags("base", base, "outcome", outcome)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void notModified() {
+        notModified.increment();
+    }
+
+    /**
+     * The provider answered with current rates, whether or not they were new.
+     */
+    public void fetchSucceeded() {
+        lastSuccessfulFetchMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @param rowsSaved rows a poll would have fetched, i.e. the currencies in the current snapshot
+     */
+    public void pollSkipped(int rowsSaved) {
+        pollsSkipped.increment();
+        this.rowsSaved.add(rowsSaved);
+    }
+
+    public void unchangedFetch(int rowsSaved) {
+        unchangedFetches.increment();
+        this.rowsSaved.add(rowsSaved);
+    }
+
+    public void rowsIngested(int fetched, int persisted, Duration writeTime) {
+        rowsWritten.add(persisted);
+        rowsSaved.add(fetched - persisted);
+        batchSize.record(fetched);
+        writeTimer.record(writeTime);
+    }
+
+    public IngestStatsDto snapshot() {
+        return new IngestStatsDto(
+                providerCalls.sum(),
+                notModified.sum(),
+                pollsSkipped.sum(),
+                unchangedFetches.sum(),
+                rowsWritten.sum(),
+                rowsSaved.sum());
+    }
+
+    private void counter(String name, LongAdder adder, String description) {
+        FunctionCounter.builder(name, adder, LongAdder::sum)
+                .description(description)
+                .register(registry);
+    }
+
+    private double secondsSinceLastSuccessfulFetch() {
+        long last = lastSuccessfulFetchMillis;
+        return last == 0 ? Double.NaN : (System.currentTimeMillis() - last) / 1000d;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.currencyfetcher.ingest;
+
+import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.history.RateHistoryStore;
+import com.example.currencyfetcher.repository.LatestRateRepository;
+import com.example.currencyfetcher.rollup.CandleAggregator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Blocking persistence step of an ingest run: history rows, the latest rate per currency and candles of one
+ * tick in one transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class IngestWriter {
+
+    private final RateHistoryStore history;
+    private final LatestRateRepository latestRateRepository;
+    private final ChangeOnlyFilter changeOnlyFilter;
+    private final CandleAggregator candleAggregator;
+
+    /**
+     * @return number of history rows written
+     */
+    @Transactional
+    public int write(List<CurrencyRate> tick) {
+        List<CurrencyRate> changed = changeOnlyFilter.select(tick);
+        int persisted = history.insertAll(changed);
+        latestRateRepository.upsertAll(changed);
+        changeOnlyFilter.markPersisted(changed);
+
+        candleAggregator.apply(tick);
+        return persisted;
+    }
+}
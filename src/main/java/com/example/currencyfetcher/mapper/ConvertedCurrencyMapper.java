@@ -20,4 +20,11 @@ public final class ConvertedCurrencyMapper {
                 convertedAmount
         );
     }
+
+    public static ConvertedCurrencyDto toDto(String from,
+                                             String to,
+                                             BigDecimal amount,
+                                             BigDecimal convertedAmount) {
+        return new ConvertedCurrencyDto(from, to, amount, convertedAmount);
+    }
 }
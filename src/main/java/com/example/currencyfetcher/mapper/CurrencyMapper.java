@@ -1,8 +1,11 @@
 package com.example.currencyfetcher.mapper;
 
+import com.example.currencyfetcher.dto.CurrencyCandleDto;
 import com.example.currencyfetcher.dto.CurrencyRateHistoryDto;
 import com.example.currencyfetcher.dto.CurrencyResponseDto;
+import com.example.currencyfetcher.model.CurrencyCandle;
 import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.model.LatestRate;
 
 public final class CurrencyMapper {
 
@@ -16,6 +19,14 @@ public final class CurrencyMapper {
         );
     }
 
+    public static CurrencyResponseDto toDto(LatestRate entity) {
+        return new CurrencyResponseDto(
+                entity.getCurrencyCode(),
+                entity.getRate(),
+                entity.getTimestamp()
+        );
+    }
+
     public static CurrencyRateHistoryDto toHistoryDto(CurrencyRate entity) {
         return new CurrencyRateHistoryDto(
                 entity.getId().getCurrencyCode(),
@@ -23,4 +34,16 @@ public final class CurrencyMapper {
                 entity.getId().getTimestamp()
         );
     }
+
+    public static CurrencyCandleDto toCandleDto(CurrencyCandle entity) {
+        return new CurrencyCandleDto(
+                entity.getId().getCurrencyCode(),
+                entity.getId().getGranularity(),
+                entity.getId().getBucketStart(),
+                entity.getOpen(),
+                entity.getHigh(),
+                entity.getLow(),
+                entity.getClose()
+        );
+    }
 }
@@ -0,0 +1,37 @@
+package com.example.currencyfetcher.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Objects;
+
+/**
+ * A rate of one {@link RateBatch}: the batch id, a {@link CurrencyKey} id and the rate in
+ * {@link com.example.currencyfetcher.util.FixedPoint} units, three fixed-width columns per currency and tick.
+ */
+@Entity
+@Table(name = "batch_rates")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRate {
+
+    @EmbeddedId
+    private BatchRateId id;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BatchRate that)) return false;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.currencyfetcher.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRateId implements Serializable {
+
+    @Column(name = "batch_id")
+    private long batchId;
+
+    @Column(name = "currency_id")
+    private short currencyId;
+}
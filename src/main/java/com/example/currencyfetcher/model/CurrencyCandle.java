@@ -0,0 +1,59 @@
+package com.example.currencyfetcher.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+@Entity
+@Table(name = "currency_candles", indexes = {
+        @Index(name = "idx_candle_currency_granularity_bucket", columnList = "currency_code, granularity, bucket_start")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencyCandle {
+
+    @EmbeddedId
+    private CurrencyCandleId id;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal open;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal high;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal low;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal close;
+
+    @Column(nullable = false)
+    private int samples;
+
+    public CurrencyCandle(CurrencyCandleId id, BigDecimal firstRate) {
+        this(id, firstRate, firstRate, firstRate, firstRate, 1);
+    }
+
+    public void add(BigDecimal rate) {
+        if (rate.compareTo(high) > 0) high = rate;
+        if (rate.compareTo(low) < 0) low = rate;
+        close = rate;
+        samples++;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CurrencyCandle that)) return false;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
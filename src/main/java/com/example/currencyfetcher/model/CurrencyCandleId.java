@@ -0,0 +1,22 @@
+package com.example.currencyfetcher.model;
+
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencyCandleId implements Serializable {
+    private String currencyCode;
+
+    @Enumerated(EnumType.STRING)
+    private CandleGranularity granularity;
+
+    private LocalDateTime bucketStart;
+}
@@ -0,0 +1,39 @@
+package com.example.currencyfetcher.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Objects;
+
+/**
+ * Small integer id of a currency code, so {@link BatchRate} rows carry two bytes instead of the code.
+ */
+@Entity
+@Table(name = "currency_keys", indexes = {
+        @Index(name = "idx_currency_keys_code", columnList = "code", unique = true)
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Short id;
+
+    @Column(nullable = false, length = 3)
+    private String code;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CurrencyKey that)) return false;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.currencyfetcher.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Newest history row of a currency, one row per currency. Maintained by the ingest path in the same
+ * transaction as the history insert, so current-rate reads never scan {@code currency_rates}.
+ */
+@Entity
+@Table(name = "latest_rates")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatestRate {
+
+    @Id
+    @Column(name = "currency_code", length = 3)
+    private String currencyCode;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal rate;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    /**
+     * @return the history row this entry mirrors
+     */
+    public CurrencyRate toHistoryRow() {
+        return new CurrencyRate(currencyCode, rate, timestamp);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LatestRate that)) return false;
+        return Objects.equals(currencyCode, that.currencyCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(currencyCode);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.currencyfetcher.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * One fetch in the normalized history layout: the timestamp, source and base shared by all rates of a tick,
+ * stored once instead of on every row. The rates themselves are {@link BatchRate} rows.
+ */
+@Entity
+@Table(name = "rate_batches", indexes = {
+        @Index(name = "idx_rate_batches_timestamp", columnList = "timestamp", unique = true)
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateBatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    @Column(nullable = false, length = 64)
+    private String source;
+
+    @Column(nullable = false, length = 3)
+    private String base;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RateBatch that)) return false;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
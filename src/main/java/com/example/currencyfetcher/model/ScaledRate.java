@@ -0,0 +1,33 @@
+package com.example.currencyfetcher.model;
+
+import com.example.currencyfetcher.dto.CurrencyResponseDto;
+import com.example.currencyfetcher.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * In-memory form of a latest rate: the rate as {@link FixedPoint} units and the timestamp as epoch millis
+ * (the {@code LocalDateTime} read as UTC, so it converts back unchanged). {@code BigDecimal} and
+ * {@code LocalDateTime} are only created again by {@link #toDto()} at the API boundary.
+ */
+public record ScaledRate(String code, long units, long epochMillis) {
+
+    public static ScaledRate of(String code, BigDecimal rate, LocalDateTime timestamp) {
+        return new ScaledRate(code, FixedPoint.toUnits(rate), timestamp.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    public BigDecimal rate() {
+        return FixedPoint.toDecimal(units);
+    }
+
+    public LocalDateTime timestamp() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    public CurrencyResponseDto toDto() {
+        return new CurrencyResponseDto(code, rate(), timestamp());
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.currencyfetcher.repository;
+
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyCandle;
+import com.example.currencyfetcher.model.CurrencyCandleId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RepositoryRestResource(exported = false)
+public interface CurrencyCandleRepository
+        extends JpaRepository<CurrencyCandle, CurrencyCandleId>, CurrencyCandleRepositoryCustom {
+
+    @Query("SELECT c FROM CurrencyCandle c WHERE c.id.currencyCode = :code AND c.id.granularity = :granularity "
+            + "AND c.id.bucketStart >= :from AND c.id.bucketStart <= :to ORDER BY c.id.bucketStart DESC")
+    List<CurrencyCandle> findCandles(@Param("code") String code,
+                                     @Param("granularity") CandleGranularity granularity,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to,
+                                     Limit limit);
+}
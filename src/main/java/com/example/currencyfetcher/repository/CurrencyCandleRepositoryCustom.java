@@ -0,0 +1,13 @@
+package com.example.currencyfetcher.repository;
+
+import com.example.currencyfetcher.model.CurrencyCandle;
+
+import java.util.Collection;
+
+public interface CurrencyCandleRepositoryCustom {
+
+    /**
+     * Batched insert-or-update of candles keyed by (currency, granularity, bucket start).
+     */
+    void upsertAll(Collection<CurrencyCandle> candles);
+}
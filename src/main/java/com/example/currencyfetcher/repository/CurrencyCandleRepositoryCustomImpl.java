@@ -0,0 +1,38 @@
+package com.example.currencyfetcher.repository;
+
+import com.example.currencyfetcher.model.CurrencyCandle;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class CurrencyCandleRepositoryCustomImpl implements CurrencyCandleRepositoryCustom {
+
+    // H2 MERGE ... KEY is an upsert on the primary key columns.
+    private static final String UPSERT_SQL =
+            "MERGE INTO currency_candles (currency_code, granularity, bucket_start, open, high, low, close, samples) "
+                    + "KEY (currency_code, granularity, bucket_start) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void upsertAll(Collection<CurrencyCandle> candles) {
+        if (candles.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, candles, BATCH_SIZE, (ps, candle) -> {
+            ps.setString(1, candle.getId().getCurrencyCode());
+            ps.setString(2, candle.getId().getGranularity().name());
+            ps.setObject(3, candle.getId().getBucketStart());
+            ps.setBigDecimal(4, candle.getOpen());
+            ps.setBigDecimal(5, candle.getHigh());
+            ps.setBigDecimal(6, candle.getLow());
+            ps.setBigDecimal(7, candle.getClose());
+            ps.setInt(8, candle.getSamples());
+        });
+    }
+}
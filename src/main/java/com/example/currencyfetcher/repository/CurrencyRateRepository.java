@@ -2,19 +2,54 @@ package com.example.currencyfetcher.repository;
 
 import com.example.currencyfetcher.model.CurrencyRate;
 import com.example.currencyfetcher.model.CurrencyRateId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface CurrencyRateRepository extends JpaRepository<CurrencyRate, CurrencyRateId> {
+@RepositoryRestResource(exported = false)
+public interface CurrencyRateRepository
+        extends JpaRepository<CurrencyRate, CurrencyRateId>, CurrencyRateRepositoryCustom {
 
-    List<CurrencyRate> findByIdCurrencyCodeOrderByIdTimestampDesc(String currencyCode);
+    // Effective rate at a point in time: the newest row at or before it.
+    CurrencyRate findTopByIdCurrencyCodeAndIdTimestampLessThanEqualOrderByIdTimestampDesc(String currencyCode,
+                                                                                        LocalDateTime timestamp);
 
-    CurrencyRate findTopByIdCurrencyCodeOrderByIdTimestampDesc(String currencyCode);
+    @Query("SELECT MIN(c.id.timestamp) FROM CurrencyRate c")
+    LocalDateTime findOldestTimestamp();
 
-    @Query("SELECT DISTINCT c.id.currencyCode FROM CurrencyRate c")
-    List<String> findAllCurrencies();
+    // Keyset pages over idx_currency_timestamp: the first page is bounded by "to", later ones by the cursor.
+    @Query("SELECT c FROM CurrencyRate c WHERE c.id.currencyCode = :code "
+            + "AND c.id.timestamp >= :from AND c.id.timestamp <= :to ORDER BY c.id.timestamp DESC")
+    List<CurrencyRate> findHistoryUpTo(@Param("code") String code,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       Limit limit);
+
+    @Query("SELECT c FROM CurrencyRate c WHERE c.id.currencyCode = :code "
+            + "AND c.id.timestamp >= :from AND c.id.timestamp < :before ORDER BY c.id.timestamp DESC")
+    List<CurrencyRate> findHistoryBefore(@Param("code") String code,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("before") LocalDateTime before,
+                                         Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM CurrencyRate c WHERE c.id.currencyCode = :code "
+            + "AND c.id.timestamp >= :from AND c.id.timestamp <= :to ORDER BY c.id.timestamp DESC")
+    Stream<CurrencyRate> streamHistory(@Param("code") String code,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,40 @@
+package com.example.currencyfetcher.repository;
+
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyRate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface CurrencyRateRepositoryCustom {
+
+    /**
+     * Insert-only batched write of new rows, bypassing the persistence context
+     * (no SELECT-before-INSERT merge as with {@code saveAll} on an assigned id).
+     *
+     * @return number of rows inserted
+     */
+    int insertAll(Collection<CurrencyRate> rates);
+
+    /**
+     * Deletes at most {@code limit} rows of a currency in {@code [from, to)} that are not the last row of their
+     * hour or day. The last row of a bucket is the rate in effect at its end, so the thinned history still
+     * answers as-of queries at bucket granularity.
+     *
+     * @return number of rows deleted; fewer than {@code limit} once the window is fully thinned
+     */
+    int thin(String currencyCode, LocalDateTime from, LocalDateTime to, CandleGranularity granularity, int limit);
+
+    /**
+     * @return the newest row of every currency
+     */
+    List<CurrencyRate> findNewestPerCurrency();
+
+    /**
+     * Deletes at most {@code limit} rows older than {@code cutoff}.
+     *
+     * @return number of rows deleted
+     */
+    int deleteBefore(LocalDateTime cutoff, int limit);
+}
@@ -0,0 +1,73 @@
+package com.example.currencyfetcher.repository;
+
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyRate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class CurrencyRateRepositoryCustomImpl implements CurrencyRateRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO currency_rates (currency_code, timestamp, rate) VALUES (?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+    private static final String NEWEST_PER_CURRENCY_SQL =
+            "SELECT r.currency_code, r.timestamp, r.rate FROM currency_rates r "
+                    + "JOIN (SELECT currency_code, MAX(timestamp) AS newest FROM currency_rates GROUP BY currency_code) n "
+                    + "ON r.currency_code = n.currency_code AND r.timestamp = n.newest";
+    private static final String DELETE_BEFORE_SQL =
+            "DELETE FROM currency_rates WHERE timestamp < ? FETCH FIRST ? ROWS ONLY";
+    private static final Map<CandleGranularity, String> THIN_SQL = new EnumMap<>(Map.of(
+            CandleGranularity.HOUR, thinSql("HOUR"),
+            CandleGranularity.DAY, thinSql("DAY")));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public int insertAll(Collection<CurrencyRate> rates) {
+        if (rates.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rates, BATCH_SIZE, (ps, rate) -> {
+            ps.setString(1, rate.getCurrencyCode());
+            ps.setObject(2, rate.getTimestamp());
+            ps.setBigDecimal(3, rate.getRate());
+        });
+        return rates.size();
+    }
+
+    @Override
+    @Transactional
+    public int thin(String currencyCode, LocalDateTime from, LocalDateTime to, CandleGranularity granularity, int limit) {
+        return jdbcTemplate.update(THIN_SQL.get(granularity), currencyCode, from, to, currencyCode, from, to, limit);
+    }
+
+    @Override
+    public List<CurrencyRate> findNewestPerCurrency() {
+        return jdbcTemplate.query(NEWEST_PER_CURRENCY_SQL, (rs, rowNum) -> new CurrencyRate(
+                rs.getString(1), rs.getBigDecimal(3), rs.getObject(2, LocalDateTime.class)));
+    }
+
+    @Override
+    @Transactional
+    public int deleteBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(DELETE_BEFORE_SQL, cutoff, limit);
+    }
+
+    // The window is scanned through idx_currency_timestamp; DATE_TRUNC takes its unit as a literal only.
+    private static String thinSql(String unit) {
+        return "DELETE FROM currency_rates WHERE currency_code = ? AND timestamp >= ? AND timestamp < ? "
+                + "AND timestamp NOT IN (SELECT MAX(timestamp) FROM currency_rates "
+                + "WHERE currency_code = ? AND timestamp >= ? AND timestamp < ? "
+                + "GROUP BY DATE_TRUNC('" + unit + "', timestamp)) "
+                + "FETCH FIRST ? ROWS ONLY";
+    }
+}
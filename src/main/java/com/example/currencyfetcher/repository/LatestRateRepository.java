@@ -0,0 +1,11 @@
+package com.example.currencyfetcher.repository;
+
+import com.example.currencyfetcher.model.LatestRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RepositoryRestResource(exported = false)
+public interface LatestRateRepository extends JpaRepository<LatestRate, String>, LatestRateRepositoryCustom {
+}
@@ -0,0 +1,13 @@
+package com.example.currencyfetcher.repository;
+
+import com.example.currencyfetcher.model.CurrencyRate;
+
+import java.util.Collection;
+
+public interface LatestRateRepositoryCustom {
+
+    /**
+     * Batched insert-or-update of the latest rate per currency from newly written history rows.
+     */
+    void upsertAll(Collection<CurrencyRate> rates);
+}
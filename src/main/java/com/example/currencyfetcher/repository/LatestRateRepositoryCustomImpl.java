@@ -0,0 +1,32 @@
+package com.example.currencyfetcher.repository;
+
+import com.example.currencyfetcher.model.CurrencyRate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class LatestRateRepositoryCustomImpl implements LatestRateRepositoryCustom {
+
+    // H2 MERGE ... KEY is an upsert on the primary key column.
+    private static final String UPSERT_SQL =
+            "MERGE INTO latest_rates (currency_code, rate, timestamp) KEY (currency_code) VALUES (?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void upsertAll(Collection<CurrencyRate> rates) {
+        if (rates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rates, BATCH_SIZE, (ps, rate) -> {
+            ps.setString(1, rate.getCurrencyCode());
+            ps.setBigDecimal(2, rate.getRate());
+            ps.setObject(3, rate.getTimestamp());
+        });
+    }
+}
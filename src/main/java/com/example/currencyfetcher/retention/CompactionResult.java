@@ -0,0 +1,23 @@
+package com.example.currencyfetcher.retention;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one compaction run.
+ *
+ * @param rowsDeleted history rows reclaimed
+ * @param statements  bounded delete statements issued, each in its own short transaction
+ * @param skipped     another run was still in progress, so this one did nothing
+ */
+public record CompactionResult(long rowsDeleted, int statements, Duration elapsed, boolean skipped) {
+
+    private static final CompactionResult ALREADY_RUNNING = new CompactionResult(0, 0, Duration.ZERO, true);
+
+    public CompactionResult(long rowsDeleted, int statements, Duration elapsed) {
+        this(rowsDeleted, statements, elapsed, false);
+    }
+
+    public static CompactionResult alreadyRunning() {
+        return ALREADY_RUNNING;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.currencyfetcher.retention;
+
+import com.example.currencyfetcher.config.RetentionProperties;
+import com.example.currencyfetcher.history.RateHistoryStore;
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.LatestRate;
+import com.example.currencyfetcher.repository.LatestRateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies the tiered retention policy to the rate history: every row for {@code raw}, the last row of each
+ * hour until {@code hourly}, the last row of each day after that, and nothing past {@code max-age} when it is
+ * set. Candles are not touched.
+ * <p>
+ * Work goes one currency at a time through {@link RateHistoryStore#thinRange}: the database stores split it
+ * into one day and at most {@code batch-size} rows per delete statement, each committed on its own, so ingest
+ * and reads never wait on a long transaction; the mapped store rewrites each file once. Days already thinned by
+ * this instance are not scanned again. A run that starts while another is in progress returns at once instead of
+ * queueing behind it.
+ */
+@Component
+public class HistoryCompactor {
+
+    private final RateHistoryStore history;
+    private final LatestRateRepository latestRateRepository;
+    private final RetentionProperties properties;
+    private final Counter rowsDeleted;
+    private final Timer runTimer;
+
+    private final Map<CandleGranularity, LocalDateTime> thinnedUntil = new EnumMap<>(CandleGranularity.class);
+    // Guards thinnedUntil; a lock rather than synchronized, so a run does not pin a virtual thread's carrier.
+    private final ReentrantLock running = new ReentrantLock();
+
+    public HistoryCompactor(RateHistoryStore history,
+                            LatestRateRepository latestRateRepository,
+                            RetentionProperties properties,
+                            MeterRegistry registry) {
+        this.history = history;
+        this.latestRateRepository = latestRateRepository;
+        this.properties = properties;
+        this.rowsDeleted = Counter.builder("currency.retention.rows.deleted")
+                .description("History rows reclaimed by compaction")
+                .register(registry);
+        this.runTimer = Timer.builder("currency.retention.run")
+                .description("Duration of a history compaction run")
+                .register(registry);
+    }
+
+    public CompactionResult compact(LocalDateTime now) {
+        if (!running.tryLock()) {
+            return CompactionResult.alreadyRunning();
+        }
+        try {
+            return run(now);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private CompactionResult run(LocalDateTime now) {
+        long start = System.nanoTime();
+        LocalDateTime dailyUntil = now.minus(properties.getHourly()).truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime hourlyUntil = now.minus(properties.getRaw()).truncatedTo(ChronoUnit.DAYS);
+        // One row per currency, rather than a DISTINCT over the history.
+        List<String> codes = latestRateRepository.findAll().stream().map(LatestRate::getCurrencyCode).toList();
+
+        Tally tally = new Tally();
+        LocalDateTime cutoff = null;
+        if (properties.getMaxAge() != null) {
+            cutoff = now.minus(properties.getMaxAge()).truncatedTo(ChronoUnit.DAYS);
+            tally.rows += history.dropBefore(cutoff, properties.getBatchSize());
+            tally.statements++;
+        }
+        // The oldest tier goes first, so the hourly pass never scans days that end up daily anyway.
+        thin(CandleGranularity.DAY, cutoff, dailyUntil, codes, tally);
+        thin(CandleGranularity.HOUR, dailyUntil, hourlyUntil, codes, tally);
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        rowsDeleted.increment(tally.rows);
+        runTimer.record(elapsed);
+        return new CompactionResult(tally.rows, tally.statements, elapsed);
+    }
+
+    private void thin(CandleGranularity granularity, LocalDateTime notBefore, LocalDateTime until,
+                      List<String> codes, Tally tally) {
+        LocalDateTime from = thinnedUntil.get(granularity);
+        if (from == null) {
+            LocalDateTime oldest = history.findOldestTimestamp();
+            if (oldest == null) return;
+            from = oldest.truncatedTo(ChronoUnit.DAYS);
+        }
+        if (notBefore != null && from.isBefore(notBefore)) {
+            from = notBefore;
+        }
+
+        if (from.isBefore(until)) {
+            for (String code : codes) {
+                history.thinRange(code, from, until, granularity, properties.getBatchSize(), deleted -> {
+                    tally.rows += deleted;
+                    tally.statements++;
+                });
+            }
+        }
+        // Ingest only appends at the current time, so nothing older than this will need thinning again.
+        thinnedUntil.put(granularity, from.isAfter(until) ? from : until);
+    }
+
+    private static final class Tally {
+        private long rows;
+        private int statements;
+    }
+}
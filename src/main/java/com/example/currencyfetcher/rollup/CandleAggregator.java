@@ -0,0 +1,69 @@
+package com.example.currencyfetcher.rollup;
+
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyCandle;
+import com.example.currencyfetcher.model.CurrencyCandleId;
+import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.repository.CurrencyCandleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Folds every ingested tick into the hourly and daily OHLC candles of each currency.
+ * Only the currently open candle per (currency, granularity) is kept in memory; it is
+ * reloaded from the database after a restart so a bucket is never split.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CandleAggregator {
+
+    private final CurrencyCandleRepository candleRepository;
+
+    private final Map<String, CurrencyCandle> openCandles = new ConcurrentHashMap<>();
+
+    public List<CurrencyCandle> apply(Collection<CurrencyRate> tick) {
+        List<CurrencyCandle> touched = new ArrayList<>(tick.size() * CandleGranularity.values().length);
+
+        for (CurrencyRate rate : tick) {
+            for (CandleGranularity granularity : CandleGranularity.values()) {
+                CurrencyCandleId id = new CurrencyCandleId(
+                        rate.getCurrencyCode(), granularity, granularity.bucketStart(rate.getTimestamp()));
+
+                // Ingest is the only writer, so a plain get/put is enough; loading inside compute() would hold
+                // the map's bin lock across a query and pin the carrier when ingest runs on a virtual thread.
+                String key = rate.getCurrencyCode() + ':' + granularity;
+                CurrencyCandle candle = openCandles.get(key);
+                if (candle != null && candle.getId().equals(id)) {
+                    candle.add(rate.getRate());
+                } else {
+                    candle = candleRepository.findById(id)
+                            .map(existing -> {
+                                existing.add(rate.getRate());
+                                return existing;
+                            })
+                            .orElseGet(() -> new CurrencyCandle(id, rate.getRate()));
+                    openCandles.put(key, candle);
+                }
+                touched.add(candle);
+            }
+        }
+
+        try {
+            candleRepository.upsertAll(touched);
+        } catch (RuntimeException ex) {
+            // In-memory candles already include this tick; drop them so they are reloaded from the DB.
+            openCandles.clear();
+            throw ex;
+        }
+        log.debug("Updated {} candles", touched.size());
+        return touched;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.currencyfetcher.scheduler;
+
+import com.example.currencyfetcher.config.IngestProperties;
+import com.example.currencyfetcher.ingest.IngestResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Decides when the scheduler calls the provider. After new rates it waits for the provider's advertised
+ * next update (plus a grace period); when a call finds nothing new it waits for that hint if it is still
+ * ahead, or otherwise backs off exponentially. Gaps always stay between the min and max poll intervals.
+ * Only the scheduler thread drives it.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdaptivePollPolicy {
+
+    private static final int TICK_TOLERANCE_DIVISOR = 10;
+
+    private final IngestProperties properties;
+
+    private volatile Instant nextPollAt = Instant.MIN;
+    private volatile Duration backoff = Duration.ZERO;
+
+    /**
+     * Ticks fire every min poll interval but read their own clock, so one may land a little before a target
+     * that was set from the previous poll's start. Anything within a tenth of the min interval counts as due;
+     * otherwise that tick would be skipped and the gap would double.
+     */
+    public boolean shouldPoll(Instant now) {
+        Duration tolerance = properties.getMinPollInterval().dividedBy(TICK_TOLERANCE_DIVISOR);
+        return !now.plus(tolerance).isBefore(nextPollAt);
+    }
+
+    public Instant getNextPollAt() {
+        return nextPollAt;
+    }
+
+    /**
+     * @param polledAt when the poll that produced {@code result} started
+     */
+    public void onResult(Instant polledAt, IngestResult result) {
+        Duration min = properties.getMinPollInterval();
+        Instant hint = result.nextUpdate() == null ? null : result.nextUpdate().plus(properties.getNextUpdateGrace());
+
+        if (result.fetched() > 0) {
+            backoff = Duration.ZERO;
+            nextPollAt = within(polledAt, hint != null ? hint : polledAt.plus(min));
+        } else if (result.unchanged()) {
+            if (hint != null && hint.isAfter(polledAt)) {
+                nextPollAt = within(polledAt, hint);
+            } else {
+                // The provider is late: tighten back to min once it publishes, until then poll less and less often.
+                backoff = backoff.isZero() ? min : min(backoff.multipliedBy(2), properties.getMaxPollInterval());
+                nextPollAt = within(polledAt, polledAt.plus(backoff));
+            }
+        } else {
+            // Failed or empty run: the client already retried, so simply try again on the next tick.
+            nextPollAt = polledAt.plus(min);
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private Instant within(Instant polledAt, Instant candidate) {
+        Instant earliest = polledAt.plus(properties.getMinPollInterval());
+        Instant latest = polledAt.plus(properties.getMaxPollInterval());
+        if (candidate.isBefore(earliest)) return earliest;
+        if (candidate.isAfter(latest)) return latest;
+        return candidate;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.currencyfetcher.scheduler;
+
+import com.example.currencyfetcher.service.CurrencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheRefreshScheduler {
+
+    private final CurrencyService currencyService;
+
+    @Scheduled(fixedRateString = "${currency.cache.refresh-interval:5s}")
+    public void refreshAhead() {
+        try {
+            int refreshed = currencyService.refreshCache();
+            if (refreshed > 0) {
+                log.debug("Refreshed {} cache entries ahead of expiry", refreshed);
+            }
+        } catch (Exception ex) {
+            log.error("Cache refresh-ahead failed", ex);
+        }
+    }
+}
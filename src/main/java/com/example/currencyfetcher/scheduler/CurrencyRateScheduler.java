@@ -1,24 +1,44 @@
 package com.example.currencyfetcher.scheduler;
 
+import com.example.currencyfetcher.ingest.IngestResult;
+import com.example.currencyfetcher.ingest.IngestStats;
 import com.example.currencyfetcher.service.CurrencyService;
-import jakarta.transaction.Transactional;
+import com.example.currencyfetcher.snapshot.LatestRatesHolder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class CurrencyRateScheduler {
 
     private final CurrencyService currencyService;
+    private final AdaptivePollPolicy pollPolicy;
+    private final IngestStats ingestStats;
+    private final LatestRatesHolder latestRates;
 
-    @Scheduled(fixedRate = 60_000)
-    @Transactional
+    @Scheduled(fixedRateString = "${currency.ingest.min-poll-interval:60s}")
     public void fetchAndPersistRates() {
+        Instant now = Instant.now();
+        if (!pollPolicy.shouldPoll(now)) {
+            log.debug("Skipping poll until {}", pollPolicy.getNextPollAt());
+            ingestStats.pollSkipped(latestRates.current().getRatesDescending().size());
+            return;
+        }
         try {
-            currencyService.fetchAndSaveRates();
+            IngestResult result = currencyService.fetchAndSaveRates();
+            pollPolicy.onResult(now, result);
+            if (result.fetched() > 0) {
+                log.info("Ingested {} rates: {} rows written in {} ms ({} rows/s), fetch took {} ms",
+                        result.fetched(), result.persisted(), result.writeTime().toMillis(),
+                        Math.round(result.rowsPerSecond()), result.fetchTime().toMillis());
+            } else if (result.unchanged()) {
+                log.info("Rates unchanged, next poll at {}", pollPolicy.getNextPollAt());
+            }
         } catch (Exception ex) {
             log.error("Scheduled fetch failed", ex);
         }
@@ -0,0 +1,37 @@
+package com.example.currencyfetcher.scheduler;
+
+import com.example.currencyfetcher.config.RetentionProperties;
+import com.example.currencyfetcher.retention.CompactionResult;
+import com.example.currencyfetcher.retention.HistoryCompactor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RetentionScheduler {
+
+    private final HistoryCompactor compactor;
+    private final RetentionProperties properties;
+
+    @Scheduled(fixedDelayString = "${currency.retention.interval:1h}",
+            initialDelayString = "${currency.retention.interval:1h}")
+    public void compactHistory() {
+        if (!properties.isEnabled()) return;
+        try {
+            CompactionResult result = compactor.compact(LocalDateTime.now());
+            if (result.skipped()) {
+                log.info("Skipped history compaction: the previous run is still in progress");
+                return;
+            }
+            log.info("Compacted rate history: {} rows reclaimed with {} statements in {} ms",
+                    result.rowsDeleted(), result.statements(), result.elapsed().toMillis());
+        } catch (Exception ex) {
+            log.error("History compaction failed", ex);
+        }
+    }
+}
@@ -1,21 +1,45 @@
 package com.example.currencyfetcher.service;
 
+import com.example.currencyfetcher.dto.BatchConversionResultDto;
+import com.example.currencyfetcher.dto.CacheStatsDto;
+import com.example.currencyfetcher.dto.ConversionRequestDto;
 import com.example.currencyfetcher.dto.ConvertedCurrencyDto;
+import com.example.currencyfetcher.dto.CurrencyCandleDto;
 import com.example.currencyfetcher.dto.CurrencyRateHistoryDto;
 import com.example.currencyfetcher.dto.CurrencyResponseDto;
+import com.example.currencyfetcher.dto.HistoryPageDto;
+import com.example.currencyfetcher.dto.IngestStatsDto;
+import com.example.currencyfetcher.ingest.IngestResult;
+import com.example.currencyfetcher.model.CandleGranularity;
 import com.example.currencyfetcher.model.CurrencyRate;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface CurrencyService {
     Optional<CurrencyResponseDto> getCachedCurrency(String currency);
+    int refreshCache(); // Refresh-ahead of cache entries close to expiry
     ConvertedCurrencyDto convert(String from, String to, BigDecimal amount);
+    Stream<BatchConversionResultDto> convertBatch(Stream<ConversionRequestDto> requests);
     List<CurrencyResponseDto> filterByMinRate(double minRate);
     List<CurrencyResponseDto> getTopCurrencies(int limit);
+    List<CurrencyResponseDto> getRatesForBase(String base);
     Optional<CurrencyRate> getLatestFromDB(String code);
-    void fetchAndSaveRates(); // Scheduled method
+    CurrencyResponseDto getRateAsOf(String code, LocalDateTime timestamp);
+    IngestResult fetchAndSaveRates(); // Scheduled method
+    Mono<IngestResult> refreshRates();
     CurrencyResponseDto getRatesForCurrency(String code);
-    List<CurrencyRateHistoryDto> getHistoryForCurrency(String code);
+    IngestStatsDto getIngestStats();
+    CacheStatsDto getCacheStats();
+    HistoryPageDto getHistoryForCurrency(String code, LocalDateTime from, LocalDateTime to,
+                                         LocalDateTime cursor, int limit);
+    List<CurrencyCandleDto> getCandlesForCurrency(String code, CandleGranularity granularity,
+                                                  LocalDateTime from, LocalDateTime to, int limit);
+    void streamHistoryForCurrency(String code, LocalDateTime from, LocalDateTime to,
+                                  Consumer<CurrencyRateHistoryDto> sink);
 }
@@ -1,75 +1,233 @@
 package com.example.currencyfetcher.service.impl;
 
 import com.example.currencyfetcher.cache.CacheService;
+import com.example.currencyfetcher.cache.SingleFlight;
 import com.example.currencyfetcher.clients.ExchangeClient;
+import com.example.currencyfetcher.config.CacheProperties;
+import com.example.currencyfetcher.config.IngestProperties;
+import com.example.currencyfetcher.dto.BatchConversionResultDto;
+import com.example.currencyfetcher.dto.CacheStatsDto;
+import com.example.currencyfetcher.dto.ConversionRequestDto;
 import com.example.currencyfetcher.dto.ConvertedCurrencyDto;
+import com.example.currencyfetcher.dto.CurrencyCandleDto;
 import com.example.currencyfetcher.dto.CurrencyApiResponseDto;
 import com.example.currencyfetcher.dto.CurrencyRateHistoryDto;
 import com.example.currencyfetcher.dto.CurrencyResponseDto;
+import com.example.currencyfetcher.dto.HistoryPageDto;
+import com.example.currencyfetcher.dto.IngestStatsDto;
 import com.example.currencyfetcher.exceptions.InvalidCurrencyException;
+import com.example.currencyfetcher.history.RateHistoryStore;
+import com.example.currencyfetcher.ingest.IngestResult;
+import com.example.currencyfetcher.ingest.IngestStats;
+import com.example.currencyfetcher.ingest.IngestWriter;
 import com.example.currencyfetcher.mapper.ConvertedCurrencyMapper;
 import com.example.currencyfetcher.mapper.CurrencyMapper;
+import com.example.currencyfetcher.model.CandleGranularity;
 import com.example.currencyfetcher.model.CurrencyRate;
-import com.example.currencyfetcher.repository.CurrencyRateRepository;
+import com.example.currencyfetcher.model.LatestRate;
+import com.example.currencyfetcher.model.ScaledRate;
+import com.example.currencyfetcher.repository.CurrencyCandleRepository;
+import com.example.currencyfetcher.repository.LatestRateRepository;
 import com.example.currencyfetcher.service.CurrencyService;
+import com.example.currencyfetcher.snapshot.LatestRatesHolder;
+import com.example.currencyfetcher.snapshot.LatestRatesSnapshot;
+import com.example.currencyfetcher.util.CurrencyCodes;
 import com.example.currencyfetcher.validation.CurrencyValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CurrencyServiceImpl implements CurrencyService {
 
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final ExchangeClient exchangeClient;
-    private final CurrencyRateRepository repository;
+    private final RateHistoryStore history;
+    private final LatestRateRepository latestRateRepository;
     private final CacheService cacheService;
     private final CurrencyValidator validator;
+    private final LatestRatesHolder latestRates;
+    private final CurrencyCandleRepository candleRepository;
+    private final IngestWriter ingestWriter;
+    private final Scheduler ingestScheduler;
+    private final IngestProperties ingestProperties;
+    private final IngestStats ingestStats;
+    private final CacheProperties cacheProperties;
+
+    private final SingleFlight<String, Optional<CurrencyResponseDto>> latestFromDb = new SingleFlight<>();
+
+    private volatile CurrencyApiResponseDto lastIngested;
 
     @Override
-    public void fetchAndSaveRates() {
+    public IngestResult fetchAndSaveRates() {
         try {
-            CurrencyApiResponseDto response = exchangeClient.fetchLatestRates("USD");
-            Map<String, BigDecimal> rates = response.conversionRates();
+            return refreshRates().blockOptional().orElse(IngestResult.skipped());
+        } catch (Exception e) {
+            log.error("fetch failed", e);
+            return IngestResult.skipped();
+        }
+    }
 
-            if (rates == null || rates.isEmpty()) return;
+    @Override
+    public Mono<IngestResult> refreshRates() {
+        List<String> bases = ingestProperties.getBases().stream().map(String::toUpperCase).toList();
+        String primaryBase = bases.get(0);
 
-            LocalDateTime now = LocalDateTime.now();
+        return Mono.defer(() -> {
+            long fetchStart = System.nanoTime();
+            // All bases are requested at once (up to the concurrency cap), so a tick takes about as long as
+            // its slowest call rather than the sum of them.
+            return Flux.fromIterable(bases)
+                    .flatMap(base -> fetchBase(base, base.equals(primaryBase)), ingestProperties.getMaxConcurrentFetches())
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                    // The fetch never blocks; persisting does, so it moves off the HTTP client's event loop.
+                    .publishOn(ingestScheduler)
+                    .map(responses -> persist(primaryBase, responses, Duration.ofNanos(System.nanoTime() - fetchStart)));
+        });
+    }
 
-            List<CurrencyRate> rateEntities = rates.entrySet().stream()
-                    .map(entry -> new CurrencyRate(
-                            entry.getKey(),
-                            entry.getValue(),
-                            now
-                    ))
-                    .collect(Collectors.toList());
+    private Mono<Map.Entry<String, CurrencyApiResponseDto>> fetchBase(String base, boolean primary) {
+        Mono<Map.Entry<String, CurrencyApiResponseDto>> fetch = exchangeClient.fetchLatestRates(base)
+                .timeout(ingestProperties.getBaseTimeout())
+                // Key the response by the requested base, whatever casing the API echoes back.
+                .map(response -> Map.entry(base, response));
+        if (primary) {
+            return fetch;
+        }
+        // A missing secondary base only costs its native quotes for this tick.
+        return fetch.onErrorResume(ex -> {
+            log.warn("Skipping base {} this tick: {}", base, ex.getMessage());
+            return Mono.empty();
+        });
+    }
 
-            repository.saveAll(rateEntities);
+    private IngestResult persist(String primaryBase, Map<String, CurrencyApiResponseDto> responses, Duration fetchTime) {
+        CurrencyApiResponseDto primary = responses.get(primaryBase);
+        Map<String, BigDecimal> rates = primary == null ? null : primary.conversionRates();
 
-        } catch (Exception e) {
-            log.error("fetch failed", e);
+        if (rates == null || rates.isEmpty()) return IngestResult.skipped();
+        ingestStats.fetchSucceeded();
+
+        if (isAlreadyIngested(primary)) {
+            log.debug("Rates for base {} unchanged since the last run", primaryBase);
+            ingestStats.unchangedFetch(rates.size());
+            // The provider confirmed the rates are still current, so they stay fresh in the snapshot and cache.
+            latestRates.confirm();
+            cacheService.updateAll(latestRates.current().getScaledDescending());
+            return IngestResult.unchanged(fetchTime, primary.nextUpdate());
         }
+
+        // Millisecond precision is what the cache and snapshot keep, so rows, snapshot and cache agree.
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        List<CurrencyRate> rateEntities = rates.entrySet().stream()
+                .map(entry -> new CurrencyRate(
+                        entry.getKey(),
+                        entry.getValue(),
+                        now
+                ))
+                .collect(Collectors.toList());
+
+        long writeStart = System.nanoTime();
+        int persisted = ingestWriter.write(rateEntities);
+        Duration writeTime = Duration.ofNanos(System.nanoTime() - writeStart);
+
+        Map<String, Map<String, BigDecimal>> nativeQuotes = new HashMap<>();
+        responses.forEach((base, response) -> {
+            if (!base.equals(primaryBase) && response.conversionRates() != null) {
+                nativeQuotes.put(base, response.conversionRates());
+            }
+        });
+        LatestRatesSnapshot published = latestRates.publish(now, rates, nativeQuotes);
+        cacheService.updateAll(published.getScaledDescending());
+        lastIngested = primary;
+        ingestStats.rowsIngested(rateEntities.size(), persisted, writeTime);
+
+        return new IngestResult(rateEntities.size(), persisted, fetchTime, writeTime, false, primary.nextUpdate());
+    }
+
+    /**
+     * A 304 replays the previous response instance; without conditional-request support the provider's
+     * publication time tells whether the body is new.
+     */
+    private boolean isAlreadyIngested(CurrencyApiResponseDto response) {
+        CurrencyApiResponseDto previous = lastIngested;
+        if (previous == null) return false;
+        return response == previous
+                || (response.timeLastUpdateUnix() != null
+                && response.timeLastUpdateUnix().equals(previous.timeLastUpdateUnix()));
     }
 
     @Override
     public Optional<CurrencyResponseDto> getCachedCurrency(String currency) {
         validator.validate(currency);
 
-        return cacheService.getIfFresh(currency)
-                .map(cached -> new CurrencyResponseDto(currency.toUpperCase(), cached.getRate(), cached.getTimestamp()))
-                .or(() -> {
-                    CurrencyRate latest = repository.findTopByIdCurrencyCodeOrderByIdTimestampDesc(currency.toUpperCase());
-                    if (latest == null) return Optional.empty();
-                    cacheService.update(currency, latest.getRate(), latest.getId().getTimestamp());
-                    return Optional.of(CurrencyMapper.toDto(latest));
-                });
+        return fromCache(currency)
+                // Unchanged rates are not re-persisted every tick, so the snapshot is the freshest source.
+                .or(() -> servableSnapshot().find(currency))
+                // Within the stale-serving policy an expired entry beats a query; refresh-ahead will replace it.
+                .or(() -> cacheService.getIfServable(currency).map(ScaledRate::toDto))
+                // Concurrent misses on one code share a single query; the cache is re-checked inside the flight
+                // so callers arriving just after a load completes do not start another one.
+                .or(() -> latestFromDb.load(CurrencyCodes.canonical(currency),
+                        () -> fromCache(currency).or(() -> queryLatest(currency))));
+    }
+
+    private Optional<CurrencyResponseDto> queryLatest(String currency) {
+        // One row per currency, so a cold read costs the same however long the history grows.
+        LatestRate latest = cacheService.recordLoad(
+                () -> latestRateRepository.findById(CurrencyCodes.canonical(currency)).orElse(null));
+        if (latest == null) return Optional.empty();
+        cacheService.update(currency, latest.getRate(), latest.getTimestamp());
+        return Optional.of(CurrencyMapper.toDto(latest));
+    }
+
+    @Override
+    public int refreshCache() {
+        List<String> due = cacheService.dueForRefresh();
+        LatestRatesSnapshot snapshot = servableSnapshot();
+        for (String code : due) {
+            try {
+                snapshot.findScaled(code).ifPresentOrElse(
+                        cacheService::update,
+                        () -> latestFromDb.load(code, () -> queryLatest(code)));
+            } catch (RuntimeException ex) {
+                log.warn("Refresh-ahead of {} failed: {}", code, ex.getMessage());
+            }
+        }
+        return due.size();
+    }
+
+    /**
+     * The snapshot as a cache source: once fetches have failed for longer than the TTL plus the stale-serving
+     * window, its rates are no fresher than an expired cache entry and are neither served nor re-cached.
+     */
+    private LatestRatesSnapshot servableSnapshot() {
+        return latestRates.currentWithin(cacheProperties.getTtl().plus(cacheProperties.getMaxStale()));
+    }
+
+    private Optional<CurrencyResponseDto> fromCache(String currency) {
+        return cacheService.getIfFresh(currency).map(ScaledRate::toDto);
     }
 
     @Override
@@ -77,6 +235,14 @@ public class CurrencyServiceImpl implements CurrencyService {
         validator.validate(from);
         validator.validate(to);
 
+        BigDecimal crossConverted = servableSnapshot().getCrossRates().convert(from, to, amount);
+        if (crossConverted != null) {
+            return ConvertedCurrencyMapper.toDto(
+                    CurrencyCodes.canonical(from), CurrencyCodes.canonical(to), amount, crossConverted);
+        }
+
+        // No servable snapshot (before the first fetch, or fetches failing past the stale-serving window):
+        // fall back to the cached/DB rates.
         CurrencyResponseDto fromRate = getCachedCurrency(from)
                 .orElseThrow(() -> new InvalidCurrencyException(from));
         CurrencyResponseDto toRate = getCachedCurrency(to)
@@ -89,31 +255,50 @@ public class CurrencyServiceImpl implements CurrencyService {
         return ConvertedCurrencyMapper.toDto(fromRate, toRate, amount, converted);
     }
 
+    @Override
+    public Stream<BatchConversionResultDto> convertBatch(Stream<ConversionRequestDto> requests) {
+        BatchConversion batch = new BatchConversion(latestRates.current());
+        AtomicInteger index = new AtomicInteger();
+        return requests.map(request -> batch.convert(index.getAndIncrement(), request));
+    }
+
     @Override
     public List<CurrencyResponseDto> filterByMinRate(double minRate) {
-        Map<String, CurrencyRate> latestRates = getLatestRatesMap(repository.findAll());
+        return latestRates.current().atLeast(BigDecimal.valueOf(minRate));
+    }
 
-        return latestRates.values().stream()
-                .filter(rate -> rate.getRate().compareTo(BigDecimal.valueOf(minRate)) >= 0)
-                .map(CurrencyMapper::toDto)
+    @Override
+    public List<CurrencyResponseDto> getTopCurrencies(int limit) {
+        return latestRates.current().top(limit);
+    }
+
+    @Override
+    public List<CurrencyResponseDto> getRatesForBase(String base) {
+        validator.validate(base);
+
+        LatestRatesSnapshot snapshot = latestRates.current();
+        Map<String, BigDecimal> rates = snapshot.getCrossRates().ratesFor(base);
+        if (rates.isEmpty()) {
+            throw new InvalidCurrencyException(base);
+        }
+        return rates.entrySet().stream()
+                .map(entry -> new CurrencyResponseDto(entry.getKey(), entry.getValue(), snapshot.getTimestamp()))
                 .collect(Collectors.toList());
     }
 
     @Override
-    public List<CurrencyResponseDto> getTopCurrencies(int limit) {
-        Map<String, CurrencyRate> latestRates = getLatestRatesMap(repository.findAll());
+    public CurrencyResponseDto getRateAsOf(String code, LocalDateTime timestamp) {
+        validator.validate(code);
 
-        return latestRates.values().stream()
-                .sorted(Comparator.comparing(CurrencyRate::getRate).reversed())
-                .limit(limit)
+        return history.findEffectiveAt(code.toUpperCase(), timestamp)
                 .map(CurrencyMapper::toDto)
-                .collect(Collectors.toList());
+                .orElseThrow(() -> new InvalidCurrencyException(code));
     }
 
     @Override
     public Optional<CurrencyRate> getLatestFromDB(String code) {
         validator.validate(code);
-        return Optional.ofNullable(repository.findTopByIdCurrencyCodeOrderByIdTimestampDesc(code.toUpperCase()));
+        return latestRateRepository.findById(code.toUpperCase()).map(LatestRate::toHistoryRow);
     }
 
     @Override
@@ -123,20 +308,135 @@ public class CurrencyServiceImpl implements CurrencyService {
     }
 
     @Override
-    public List<CurrencyRateHistoryDto> getHistoryForCurrency(String code) {
+    public IngestStatsDto getIngestStats() {
+        return ingestStats.snapshot();
+    }
+
+    @Override
+    public CacheStatsDto getCacheStats() {
+        return cacheService.stats();
+    }
+
+    @Override
+    public HistoryPageDto getHistoryForCurrency(String code, LocalDateTime from, LocalDateTime to,
+                                                LocalDateTime cursor, int limit) {
         validator.validate(code);
 
-        return repository.findByIdCurrencyCodeOrderByIdTimestampDesc(code.toUpperCase())
-                .stream()
+        LocalDateTime lower = from != null ? from : HISTORY_START;
+        List<CurrencyRate> rows = cursor != null
+                ? history.findBefore(code.toUpperCase(), lower, cursor, limit)
+                : history.findUpTo(code.toUpperCase(), lower, to != null ? to : HISTORY_END, limit);
+
+        List<CurrencyRateHistoryDto> items = rows.stream()
                 .map(CurrencyMapper::toHistoryDto)
                 .collect(Collectors.toList());
+        LocalDateTime nextCursor = items.size() == limit ? items.get(items.size() - 1).timestamp() : null;
+        if (nextCursor == null) {
+            effectiveRateBefore(code, from, items).ifPresent(items::add);
+        }
+        return new HistoryPageDto(items, nextCursor);
+    }
+
+    @Override
+    public List<CurrencyCandleDto> getCandlesForCurrency(String code, CandleGranularity granularity,
+                                                         LocalDateTime from, LocalDateTime to, int limit) {
+        validator.validate(code);
+
+        return candleRepository.findCandles(code.toUpperCase(), granularity,
+                        from != null ? granularity.bucketStart(from) : HISTORY_START,
+                        to != null ? to : HISTORY_END,
+                        Limit.of(limit))
+                .stream()
+                .map(CurrencyMapper::toCandleDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamHistoryForCurrency(String code, LocalDateTime from, LocalDateTime to,
+                                         Consumer<CurrencyRateHistoryDto> sink) {
+        validator.validate(code);
+
+        LocalDateTime[] oldest = new LocalDateTime[1];
+        history.stream(code.toUpperCase(), from != null ? from : HISTORY_START, to != null ? to : HISTORY_END, rate -> {
+            sink.accept(CurrencyMapper.toHistoryDto(rate));
+            oldest[0] = rate.getTimestamp();
+        });
+        effectiveRateBefore(code, from, oldest[0]).ifPresent(sink);
+    }
+
+    /**
+     * Rows are only written when a rate changes (or on heartbeat), so the rate in effect at {@code from}
+     * can be an older row. Returns that row when the window does not already start with one at {@code from}.
+     */
+    private Optional<CurrencyRateHistoryDto> effectiveRateBefore(String code, LocalDateTime from,
+                                                                 List<CurrencyRateHistoryDto> window) {
+        return effectiveRateBefore(code, from, window.isEmpty() ? null : window.get(window.size() - 1).timestamp());
     }
 
-    private Map<String, CurrencyRate> getLatestRatesMap(List<CurrencyRate> rates) {
-        return rates.stream().collect(Collectors.toMap(
-                rate -> rate.getId().getCurrencyCode(),
-                r -> r,
-                (r1, r2) -> r1.getId().getTimestamp().isAfter(r2.getId().getTimestamp()) ? r1 : r2
-        ));
+    private Optional<CurrencyRateHistoryDto> effectiveRateBefore(String code, LocalDateTime from, LocalDateTime oldest) {
+        if (from == null || from.equals(oldest)) {
+            return Optional.empty();
+        }
+        return history.findEffectiveAt(code.toUpperCase(), from).map(CurrencyMapper::toHistoryDto);
+    }
+
+    /**
+     * Converts the items of one batch against a single snapshot, validating and resolving each code only once.
+     */
+    private final class BatchConversion {
+
+        private final LatestRatesSnapshot snapshot;
+        private final Map<String, Boolean> supported = new HashMap<>();
+        private final Map<String, Optional<CurrencyResponseDto>> fallbackRates = new HashMap<>();
+
+        private BatchConversion(LatestRatesSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private BatchConversionResultDto convert(int index, ConversionRequestDto request) {
+            String from = request.from();
+            String to = request.to();
+            BigDecimal amount = request.amount();
+
+            if (from == null || to == null) {
+                return BatchConversionResultDto.failure(index, from, to, amount, "Both from and to are required");
+            }
+            if (amount == null || amount.signum() <= 0) {
+                return BatchConversionResultDto.failure(index, from, to, amount, "Amount must be greater than 0");
+            }
+            if (!isSupported(from)) {
+                return BatchConversionResultDto.failure(index, from, to, amount, "Unsupported currency code: " + from);
+            }
+            if (!isSupported(to)) {
+                return BatchConversionResultDto.failure(index, from, to, amount, "Unsupported currency code: " + to);
+            }
+
+            String fromCode = CurrencyCodes.canonical(from);
+            String toCode = CurrencyCodes.canonical(to);
+
+            BigDecimal converted = snapshot.getCrossRates().convert(fromCode, toCode, amount);
+            if (converted != null) {
+                return BatchConversionResultDto.success(index, fromCode, toCode, amount, converted);
+            }
+
+            Optional<CurrencyResponseDto> fromRate = fallbackRate(fromCode);
+            Optional<CurrencyResponseDto> toRate = fallbackRate(toCode);
+            if (fromRate.isEmpty() || toRate.isEmpty()) {
+                return BatchConversionResultDto.failure(index, fromCode, toCode, amount,
+                        "No rate available for " + (fromRate.isEmpty() ? fromCode : toCode));
+            }
+            return BatchConversionResultDto.success(index, fromCode, toCode, amount, amount
+                    .multiply(toRate.get().rate())
+                    .divide(fromRate.get().rate(), 4, RoundingMode.HALF_UP));
+        }
+
+        private boolean isSupported(String code) {
+            return supported.computeIfAbsent(code, validator::isSupported);
+        }
+
+        private Optional<CurrencyResponseDto> fallbackRate(String code) {
+            return fallbackRates.computeIfAbsent(code, CurrencyServiceImpl.this::getCachedCurrency);
+        }
     }
 }
@@ -0,0 +1,175 @@
+package com.example.currencyfetcher.snapshot;
+
+import com.example.currencyfetcher.util.CurrencyCodes;
+import com.example.currencyfetcher.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * N x N matrix of cross rates derived from one set of base-relative rates.
+ * {@code rate(from, to)} is the number of {@code to} units bought by one {@code from} unit.
+ * <p>
+ * Rates are held as {@link FixedPoint} units in arrays indexed by {@link CurrencyCodes} id: a triangulated cross
+ * rate is the ratio of two base rates and a native quote is a scaled {@code long}, so a conversion is two array
+ * reads, one multiply and one divide.
+ */
+public final class CrossRateTable {
+
+    private static final MathContext PRECISION = MathContext.DECIMAL128;
+    private static final CrossRateTable EMPTY = new CrossRateTable(new int[0], new long[0]);
+
+    // ids of the codes in the table, in code order
+    private final int[] sortedIds;
+    // per id: the rate against the base in units, 0 when the code is not in the table
+    private final long[] baseUnits;
+    // per id: native quotes of that base at nativeScales[id], 0 where the pair is triangulated; null without quotes
+    private final long[][] nativeQuotes;
+    private final int[] nativeScales;
+
+    private CrossRateTable(int[] sortedIds, long[] baseUnits) {
+        this.sortedIds = sortedIds;
+        this.baseUnits = baseUnits;
+        this.nativeQuotes = new long[baseUnits.length][];
+        this.nativeScales = new int[baseUnits.length];
+    }
+
+    public static CrossRateTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds the table from rates quoted against a single base (e.g. the USD response of the API), rounded
+     * to the stored scale.
+     */
+    public static CrossRateTable fromBaseRates(Map<String, BigDecimal> baseRates) {
+        Map<Integer, Long> units = new HashMap<>(baseRates.size() * 2);
+        baseRates.forEach((code, rate) -> {
+            int id = CurrencyCodes.register(code);
+            long rateUnits = FixedPoint.toUnits(rate);
+            if (id != CurrencyCodes.UNKNOWN && rateUnits > 0) {
+                units.put(id, rateUnits);
+            }
+        });
+
+        long[] baseUnits = new long[CurrencyCodes.size()];
+        units.forEach((id, rateUnits) -> baseUnits[id] = rateUnits);
+        int[] sortedIds = units.keySet().stream()
+                .sorted(Comparator.comparing(CurrencyCodes::code))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return new CrossRateTable(sortedIds, baseUnits);
+    }
+
+    /**
+     * Same as {@link #fromBaseRates(Map)}, but the rows of currencies with native quotes (e.g. the EUR
+     * response of the API) are taken from those quotes instead of being triangulated through the base.
+     * Quotes that do not fit a {@code long} at their row's scale stay triangulated.
+     */
+    public static CrossRateTable fromBaseRates(Map<String, BigDecimal> baseRates,
+                                               Map<String, Map<String, BigDecimal>> nativeQuotes) {
+        CrossRateTable table = fromBaseRates(baseRates);
+        nativeQuotes.forEach((base, quotes) -> {
+            int from = table.idOf(base);
+            if (from == CurrencyCodes.UNKNOWN) {
+                return;
+            }
+            int scale = Math.max(FixedPoint.SCALE, quotes.values().stream()
+                    .filter(quote -> quote.signum() > 0)
+                    .mapToInt(quote -> quote.stripTrailingZeros().scale())
+                    .max()
+                    .orElse(0));
+            long[] row = new long[table.baseUnits.length];
+            quotes.forEach((code, quote) -> {
+                int to = table.idOf(code);
+                if (to != CurrencyCodes.UNKNOWN && to != from && quote.signum() > 0) {
+                    try {
+                        row[to] = quote.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+                    } catch (ArithmeticException tooLarge) {
+                        // stays triangulated
+                    }
+                }
+            });
+            table.nativeQuotes[from] = row;
+            table.nativeScales[from] = scale;
+        });
+        return table;
+    }
+
+    public int size() {
+        return sortedIds.length;
+    }
+
+    /**
+     * @return the cross rate, or {@code null} when either code is not in the table
+     */
+    public BigDecimal rate(String from, String to) {
+        int fromId = idOf(from);
+        int toId = idOf(to);
+        if (fromId == CurrencyCodes.UNKNOWN || toId == CurrencyCodes.UNKNOWN) {
+            return null;
+        }
+        if (fromId == toId) {
+            return BigDecimal.ONE;
+        }
+        long quote = nativeQuote(fromId, toId);
+        if (quote > 0) {
+            return BigDecimal.valueOf(quote, nativeScales[fromId]);
+        }
+        return BigDecimal.valueOf(baseUnits[toId]).divide(BigDecimal.valueOf(baseUnits[fromId]), PRECISION);
+    }
+
+    /**
+     * @return {@code amount} converted at the cross rate, rounded HALF_UP to scale 4,
+     *         or {@code null} when either code is not in the table
+     */
+    public BigDecimal convert(String from, String to, BigDecimal amount) {
+        int fromId = idOf(from);
+        int toId = idOf(to);
+        if (fromId == CurrencyCodes.UNKNOWN || toId == CurrencyCodes.UNKNOWN) {
+            return null;
+        }
+        return convert(fromId, toId, amount);
+    }
+
+    /**
+     * Rates of every currency against {@code base}, rounded to the scale used for stored rates.
+     */
+    public Map<String, BigDecimal> ratesFor(String base) {
+        int baseId = idOf(base);
+        if (baseId == CurrencyCodes.UNKNOWN) {
+            return Map.of();
+        }
+        Map<String, BigDecimal> result = new LinkedHashMap<>(sortedIds.length * 2);
+        for (int to : sortedIds) {
+            result.put(CurrencyCodes.code(to), convert(baseId, to, BigDecimal.ONE));
+        }
+        return result;
+    }
+
+    /**
+     * @return the code's id when it is in this table, otherwise {@link CurrencyCodes#UNKNOWN}
+     */
+    private int idOf(String code) {
+        int id = CurrencyCodes.id(code);
+        return id != CurrencyCodes.UNKNOWN && id < baseUnits.length && baseUnits[id] > 0 ? id : CurrencyCodes.UNKNOWN;
+    }
+
+    private BigDecimal convert(int from, int to, BigDecimal amount) {
+        if (from == to) {
+            return amount.setScale(FixedPoint.SCALE, RoundingMode.HALF_UP);
+        }
+        long quote = nativeQuote(from, to);
+        if (quote > 0) {
+            return FixedPoint.multiplyDivide(amount, quote, 1, nativeScales[from]);
+        }
+        return FixedPoint.multiplyDivide(amount, baseUnits[to], baseUnits[from], 0);
+    }
+
+    private long nativeQuote(int from, int to) {
+        long[] row = nativeQuotes[from];
+        return row == null ? 0 : row[to];
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.currencyfetcher.snapshot;
+
+import com.example.currencyfetcher.model.ScaledRate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Component
+public class LatestRatesHolder {
+
+    private final AtomicReference<LatestRatesSnapshot> current = new AtomicReference<>(LatestRatesSnapshot.empty());
+    private final Clock clock;
+    private volatile Instant confirmedAt = Instant.EPOCH;
+
+    public LatestRatesHolder() {
+        this(Clock.systemUTC());
+    }
+
+    public LatestRatesHolder(Clock clock) {
+        this.clock = clock;
+    }
+
+    public LatestRatesSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * @return the current snapshot if it was published or confirmed within {@code maxAge}, otherwise the empty one
+     */
+    public LatestRatesSnapshot currentWithin(Duration maxAge) {
+        LatestRatesSnapshot snapshot = current.get();
+        return Duration.between(confirmedAt, clock.instant()).compareTo(maxAge) <= 0 ? snapshot : LatestRatesSnapshot.empty();
+    }
+
+    /**
+     * Records that the provider still reports the current rates, without publishing a new version.
+     */
+    public void confirm() {
+        confirmedAt = clock.instant();
+    }
+
+    public LatestRatesSnapshot publish(LocalDateTime timestamp, Map<String, BigDecimal> rates) {
+        return publish(timestamp, rates, Map.of());
+    }
+
+    /**
+     * Publishes the primary-base rates together with the native quotes of other bases as one snapshot version.
+     */
+    public LatestRatesSnapshot publish(LocalDateTime timestamp,
+                                       Map<String, BigDecimal> rates,
+                                       Map<String, Map<String, BigDecimal>> nativeQuotes) {
+        confirmedAt = clock.instant();
+        LatestRatesSnapshot published = current.updateAndGet(
+                previous -> LatestRatesSnapshot.of(previous.getVersion() + 1, timestamp, rates, nativeQuotes));
+        log.debug("Published rates snapshot v{} with {} currencies and native quotes for {}",
+                published.getVersion(), rates.size(), nativeQuotes.keySet());
+        return published;
+    }
+
+    /**
+     * Publishes rates that each keep their own timestamp.
+     */
+    public LatestRatesSnapshot publish(Collection<ScaledRate> rates) {
+        confirmedAt = clock.instant();
+        LatestRatesSnapshot published = current.updateAndGet(
+                previous -> LatestRatesSnapshot.of(previous.getVersion() + 1, rates));
+        log.debug("Published rates snapshot v{} with {} currencies", published.getVersion(), rates.size());
+        return published;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.currencyfetcher.snapshot;
+
+import com.example.currencyfetcher.cache.CacheService;
+import com.example.currencyfetcher.history.RateHistoryStore;
+import com.example.currencyfetcher.ingest.ChangeOnlyFilter;
+import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.model.LatestRate;
+import com.example.currencyfetcher.model.ScaledRate;
+import com.example.currencyfetcher.repository.LatestRateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Serves the rates persisted by a previous run from the first request on: publishes them as the initial
+ * snapshot, warms the cache and seeds change-only persistence. Runs once every singleton exists, before
+ * scheduled ingest starts and before the web server accepts requests, and reads one row per currency.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LatestRatesRestorer implements SmartInitializingSingleton {
+
+    private final LatestRateRepository repository;
+    private final RateHistoryStore history;
+    private final LatestRatesHolder latestRates;
+    private final CacheService cacheService;
+    private final ChangeOnlyFilter changeOnlyFilter;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<LatestRate> rows = repository.findAll();
+        if (rows.isEmpty()) {
+            // A database that predates latest_rates: backfill from the newest history row of each currency.
+            repository.upsertAll(history.findNewestPerCurrency());
+            rows = repository.findAll();
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<CurrencyRate> latest = rows.stream().map(LatestRate::toHistoryRow).toList();
+        changeOnlyFilter.seed(latest);
+
+        // Each rate keeps its own timestamp: with change-only persistence an unchanged currency's row is older.
+        LatestRatesSnapshot published = latestRates.publish(latest.stream()
+                .map(rate -> ScaledRate.of(rate.getCurrencyCode(), rate.getRate(), rate.getTimestamp()))
+                .toList());
+        cacheService.updateAll(published.getScaledDescending());
+        log.info("Restored {} latest rates as of {}", published.getScaledDescending().size(), published.getTimestamp());
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.currencyfetcher.snapshot;
+
+import com.example.currencyfetcher.dto.CurrencyResponseDto;
+import com.example.currencyfetcher.model.ScaledRate;
+import com.example.currencyfetcher.util.CurrencyCodes;
+import com.example.currencyfetcher.util.FixedPoint;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Immutable view of the latest rate for every currency, built once per ingest run.
+ * Entries are kept sorted by rate (descending) so "top N" and "rate >= x" are prefix reads; each entry is held
+ * both as a {@link ScaledRate} (comparisons, cache write-through) and as the response DTO the read endpoints
+ * return, so reads allocate nothing.
+ */
+@Getter
+public final class LatestRatesSnapshot {
+
+    private static final LatestRatesSnapshot EMPTY =
+            new LatestRatesSnapshot(0L, null, List.of(), List.of(), new int[0], CrossRateTable.empty());
+
+    private final long version;
+    private final LocalDateTime timestamp;
+    private final List<ScaledRate> scaledDescending;
+    private final List<CurrencyResponseDto> ratesDescending;
+    // position in the sorted lists per CurrencyCodes id, -1 when absent
+    private final int[] positionById;
+    private final CrossRateTable crossRates;
+
+    private LatestRatesSnapshot(long version,
+                                LocalDateTime timestamp,
+                                List<ScaledRate> scaledDescending,
+                                List<CurrencyResponseDto> ratesDescending,
+                                int[] positionById,
+                                CrossRateTable crossRates) {
+        this.version = version;
+        this.timestamp = timestamp;
+        this.scaledDescending = scaledDescending;
+        this.ratesDescending = ratesDescending;
+        this.positionById = positionById;
+        this.crossRates = crossRates;
+    }
+
+    public static LatestRatesSnapshot empty() {
+        return EMPTY;
+    }
+
+    public static LatestRatesSnapshot of(long version, LocalDateTime timestamp, Map<String, BigDecimal> rates) {
+        return of(version, timestamp, rates, Map.of());
+    }
+
+    /**
+     * @param rates        rates against the primary base, which the sorted views are built from
+     * @param nativeQuotes rates fetched against other bases, keyed by base; used for their cross-rate rows
+     */
+    public static LatestRatesSnapshot of(long version,
+                                         LocalDateTime timestamp,
+                                         Map<String, BigDecimal> rates,
+                                         Map<String, Map<String, BigDecimal>> nativeQuotes) {
+        List<ScaledRate> sorted = new ArrayList<>(rates.size());
+        rates.forEach((code, rate) -> {
+            if (CurrencyCodes.register(code) != CurrencyCodes.UNKNOWN) {
+                sorted.add(ScaledRate.of(CurrencyCodes.canonical(code), rate, timestamp));
+            }
+        });
+        return build(version, timestamp, sorted, nativeQuotes);
+    }
+
+    /**
+     * For rates that keep their own timestamps, such as those restored from {@code latest_rates}; the snapshot's
+     * timestamp is the newest of them.
+     */
+    public static LatestRatesSnapshot of(long version, Collection<ScaledRate> rates) {
+        List<ScaledRate> sorted = new ArrayList<>(rates.size());
+        for (ScaledRate rate : rates) {
+            if (CurrencyCodes.register(rate.code()) != CurrencyCodes.UNKNOWN) {
+                sorted.add(new ScaledRate(CurrencyCodes.canonical(rate.code()), rate.units(), rate.epochMillis()));
+            }
+        }
+        LocalDateTime newest = sorted.stream()
+                .max(Comparator.comparingLong(ScaledRate::epochMillis))
+                .map(ScaledRate::timestamp)
+                .orElse(null);
+        return build(version, newest, sorted, Map.of());
+    }
+
+    private static LatestRatesSnapshot build(long version,
+                                             LocalDateTime timestamp,
+                                             List<ScaledRate> sorted,
+                                             Map<String, Map<String, BigDecimal>> nativeQuotes) {
+        sorted.sort(Comparator.comparingLong(ScaledRate::units).reversed());
+
+        List<CurrencyResponseDto> dtos = new ArrayList<>(sorted.size());
+        int[] positions = new int[CurrencyCodes.size()];
+        Arrays.fill(positions, -1);
+        Map<String, BigDecimal> storedRates = new HashMap<>(sorted.size() * 2);
+        for (ScaledRate rate : sorted) {
+            CurrencyResponseDto dto = rate.toDto();
+            positions[CurrencyCodes.id(rate.code())] = dtos.size();
+            dtos.add(dto);
+            storedRates.put(rate.code(), dto.rate());
+        }
+
+        return new LatestRatesSnapshot(version, timestamp, List.copyOf(sorted), List.copyOf(dtos),
+                positions, CrossRateTable.fromBaseRates(storedRates, nativeQuotes));
+    }
+
+    public boolean isEmpty() {
+        return ratesDescending.isEmpty();
+    }
+
+    public Optional<CurrencyResponseDto> find(String code) {
+        int position = positionOf(code);
+        return position < 0 ? Optional.empty() : Optional.of(ratesDescending.get(position));
+    }
+
+    public Optional<ScaledRate> findScaled(String code) {
+        int position = positionOf(code);
+        return position < 0 ? Optional.empty() : Optional.of(scaledDescending.get(position));
+    }
+
+    public List<CurrencyResponseDto> top(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        return ratesDescending.subList(0, Math.min(limit, ratesDescending.size()));
+    }
+
+    public List<CurrencyResponseDto> atLeast(BigDecimal minRate) {
+        // Binary search for the first entry below minRate; everything before it qualifies.
+        long minUnits = FixedPoint.ceilUnits(minRate);
+        int low = 0;
+        int high = scaledDescending.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (scaledDescending.get(mid).units() >= minUnits) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return ratesDescending.subList(0, low);
+    }
+
+    private int positionOf(String code) {
+        int id = CurrencyCodes.id(code);
+        return id >= 0 && id < positionById.length ? positionById[id] : -1;
+    }
+}
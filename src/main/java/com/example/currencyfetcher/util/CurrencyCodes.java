@@ -0,0 +1,93 @@
+package com.example.currencyfetcher.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Process-wide registry giving every 3-letter currency code a dense id (0, 1, 2, ... in registration order).
+ * <p>
+ * A code maps to its slot in a 26³ table by arithmetic on its letters, case-insensitively, so looking up an id
+ * or the canonical upper-case string never allocates. Ids key the snapshot and cross-rate arrays; the canonical
+ * strings key the cache. Codes are only ever added, so an id stays valid for the life of the JVM.
+ */
+public final class CurrencyCodes {
+
+    public static final int UNKNOWN = -1;
+    public static final int SLOTS = 26 * 26 * 26;
+
+    // id + 1 per slot, 0 while the slot is unregistered
+    private static final AtomicIntegerArray ID_BY_SLOT = new AtomicIntegerArray(SLOTS);
+    private static volatile String[] codes = new String[0];
+
+    private CurrencyCodes() {}
+
+    /**
+     * @return the code's slot in the 26³ table, or {@link #UNKNOWN} unless it is exactly three ASCII letters
+     */
+    public static int slot(CharSequence code) {
+        if (code == null || code.length() != 3) {
+            return UNKNOWN;
+        }
+        int slot = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = (code.charAt(i) | 0x20) - 'a'; // ASCII lower-casing; anything else falls outside 0..25
+            if (letter < 0 || letter >= 26) {
+                return UNKNOWN;
+            }
+            slot = slot * 26 + letter;
+        }
+        return slot;
+    }
+
+    /**
+     * @return the id of a registered code, or {@link #UNKNOWN}
+     */
+    public static int id(CharSequence code) {
+        int slot = slot(code);
+        return slot == UNKNOWN ? UNKNOWN : ID_BY_SLOT.get(slot) - 1;
+    }
+
+    /**
+     * @return the code's id, registering it first if needed; {@link #UNKNOWN} when it is not a 3-letter code
+     */
+    public static int register(String code) {
+        int slot = slot(code);
+        if (slot == UNKNOWN) {
+            return UNKNOWN;
+        }
+        int id = ID_BY_SLOT.get(slot) - 1;
+        return id != UNKNOWN ? id : registerSlot(slot, code);
+    }
+
+    private static synchronized int registerSlot(int slot, String code) {
+        int id = ID_BY_SLOT.get(slot) - 1;
+        if (id != UNKNOWN) {
+            return id;
+        }
+        String[] grown = Arrays.copyOf(codes, codes.length + 1);
+        grown[codes.length] = code.toUpperCase(Locale.ROOT);
+        codes = grown;
+        ID_BY_SLOT.set(slot, grown.length);
+        return grown.length - 1;
+    }
+
+    public static String code(int id) {
+        return codes[id];
+    }
+
+    /**
+     * @return the shared upper-case instance of a registered code; other strings are upper-cased as usual
+     */
+    public static String canonical(String code) {
+        int id = id(code);
+        return id == UNKNOWN ? code.toUpperCase() : codes[id];
+    }
+
+    /**
+     * @return the number of registered codes, i.e. one past the highest id
+     */
+    public static int size() {
+        return codes.length;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.currencyfetcher.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Arithmetic on rates held as scaled {@code long}s ("units"): 1.0675 is 10675 units at {@link #SCALE} 4, the scale
+ * {@code CurrencyRate} stores. Rounding is HALF_UP throughout, matching the {@code BigDecimal} code it replaces;
+ * operands that would overflow a {@code long} are handed to {@code BigDecimal}, so results never differ.
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = 4;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPoint() {}
+
+    /**
+     * @throws ArithmeticException when the rounded value does not fit in a {@code long}
+     */
+    public static long toUnits(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /**
+     * @return the fewest units that are {@code >= value}, saturating at the {@code long} range
+     */
+    public static long ceilUnits(BigDecimal value) {
+        try {
+            return value.setScale(SCALE, RoundingMode.CEILING).unscaledValue().longValueExact();
+        } catch (ArithmeticException ex) {
+            return value.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * {@code amount * numerator / (denominator * 10^rateScale)}, rounded HALF_UP to {@link #SCALE}; the same
+     * result as {@code amount.multiply(numerator / 10^rateScale).divide(denominator, 4, HALF_UP)}.
+     *
+     * @param denominator must be positive
+     */
+    public static BigDecimal multiplyDivide(BigDecimal amount, long numerator, long denominator, int rateScale) {
+        int exponent = SCALE - amount.scale() - rateScale;
+        if (amount.precision() < 19 && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            try {
+                // Re-scaling to 0 keeps the compact representation, so this does not inflate a BigInteger.
+                long dividend = Math.multiplyExact(amount.scaleByPowerOfTen(amount.scale()).longValueExact(), numerator);
+                long divisor = denominator;
+                if (exponent >= 0) {
+                    dividend = Math.multiplyExact(dividend, POWERS_OF_TEN[exponent]);
+                } else {
+                    divisor = Math.multiplyExact(divisor, POWERS_OF_TEN[-exponent]);
+                }
+                return toDecimal(divideHalfUp(dividend, divisor));
+            } catch (ArithmeticException overflow) {
+                // fall through to BigDecimal
+            }
+        }
+        return amount.multiply(BigDecimal.valueOf(numerator, rateScale))
+                .divide(BigDecimal.valueOf(denominator), SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @param divisor must be positive
+     * @return {@code dividend / divisor} rounded HALF_UP (half away from zero)
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        // remainder >= divisor / 2, without overflowing 2 * remainder
+        if (remainder >= divisor - remainder) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
@@ -1,20 +1,21 @@
 package com.example.currencyfetcher.validation;
 
 import com.example.currencyfetcher.exceptions.InvalidCurrencyException;
+import com.example.currencyfetcher.util.CurrencyCodes;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.BitSet;
 
 @Slf4j
 @Component
 public class CurrencyValidator {
 
-    private final Set<String> supportedCodes = new HashSet<>();
+    // Indexed by CurrencyCodes.slot, so a check is arithmetic plus one bit read.
+    private final BitSet supportedSlots = new BitSet(CurrencyCodes.SLOTS);
 
     @PostConstruct
     public void loadSupportedCodes() {
@@ -27,10 +28,13 @@ public class CurrencyValidator {
 
             String line;
             while ((line = reader.readLine()) != null) {
-                supportedCodes.add(line.trim().toUpperCase());
+                String code = line.trim();
+                if (CurrencyCodes.register(code) != CurrencyCodes.UNKNOWN) {
+                    supportedSlots.set(CurrencyCodes.slot(code));
+                }
             }
 
-            log.info("Loaded {} supported currency codes", supportedCodes.size());
+            log.info("Loaded {} supported currency codes", supportedSlots.cardinality());
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to load currency codes", e);
@@ -44,6 +48,7 @@ public class CurrencyValidator {
     }
 
     public boolean isSupported(String code) {
-        return supportedCodes.contains(code.toUpperCase());
+        int slot = CurrencyCodes.slot(code);
+        return slot != CurrencyCodes.UNKNOWN && supportedSlots.get(slot);
     }
 }
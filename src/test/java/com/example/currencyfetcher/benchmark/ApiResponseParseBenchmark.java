@@ -0,0 +1,51 @@
+package com.example.currencyfetcher.benchmark;
+
+import com.example.currencyfetcher.dto.CurrencyApiResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson deserialization of a full {@link CurrencyApiResponseDto} (every supported code), as the exchange
+ * client decodes it on each fetch.
+ * Run with: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="ApiResponseParseBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiResponseParseBenchmark {
+
+    private ObjectReader reader;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Same defaults as the application's codecs (unknown properties such as "result" are ignored).
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        reader = objectMapper.readerFor(CurrencyApiResponseDto.class);
+
+        Instant lastUpdate = Instant.parse("2025-08-05T00:00:01Z");
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("result", "success");
+        body.put("base_code", "USD");
+        body.put("time_last_update_unix", lastUpdate.getEpochSecond());
+        body.put("time_next_update_unix", lastUpdate.plusSeconds(86_400).getEpochSecond());
+        body.put("conversion_rates", BenchmarkData.randomRates(42));
+        json = objectMapper.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public CurrencyApiResponseDto parse() throws IOException {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.currencyfetcher.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fixtures shared by the benchmarks: the supported currency codes and reproducible random rates for them.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {}
+
+    static List<String> currencyCodes() {
+        List<String> codes = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                BenchmarkData.class.getClassLoader().getResourceAsStream("currency_codes.txt")))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                codes.add(line.trim());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return codes;
+    }
+
+    /**
+     * Rates between 0.1 and 1000 with 4 decimals for every supported code, USD = 1.
+     */
+    static Map<String, BigDecimal> randomRates(long seed) {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        Random random = new Random(seed);
+        for (String code : currencyCodes()) {
+            rates.put(code, BigDecimal.valueOf(0.1 + random.nextDouble() * 1000).setScale(4, RoundingMode.HALF_UP));
+        }
+        rates.put("USD", BigDecimal.ONE);
+        return rates;
+    }
+}
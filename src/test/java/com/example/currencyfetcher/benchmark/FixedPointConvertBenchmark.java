@@ -0,0 +1,40 @@
+package com.example.currencyfetcher.benchmark;
+
+import com.example.currencyfetcher.util.FixedPoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One cross-rate conversion with the rate held the old way, as a 34-digit {@code BigDecimal} quotient of two
+ * stored rates ({@code bigDecimal}), and as two {@link FixedPoint} units ({@code fixedPoint}).
+ * Both round HALF_UP to scale 4. Run with -prof gc to compare allocations:
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="FixedPointConvertBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointConvertBenchmark {
+
+    private final BigDecimal amount = new BigDecimal("1234.56");
+    private final long eurUnits = 9_123;        // 0.9123 per USD
+    private final long jpyUnits = 1_482_345;    // 148.2345 per USD
+    private final BigDecimal eurToJpy = new BigDecimal("148.2345")
+            .divide(new BigDecimal("0.9123"), MathContext.DECIMAL128);
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        return amount.multiply(eurToJpy).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal fixedPoint() {
+        return FixedPoint.multiplyDivide(amount, jpyUnits, eurUnits, 0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.currencyfetcher.benchmark;
+
+import com.example.currencyfetcher.dto.CurrencyResponseDto;
+import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.snapshot.LatestRatesSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * "Latest rate per currency" over a history of {@code ticks} x every supported code.
+ * {@code historyScan} is the original {@code getLatestRatesMap} approach (reduce all rows to the newest per code,
+ * then sort for the top 5); {@code snapshotTop} reads the top 5 from the published snapshot, and
+ * {@code publishSnapshot} is what building that snapshot costs once per tick.
+ * Run with: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="LatestRatesBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatestRatesBenchmark {
+
+    @Param({"100", "1000"})
+    public int ticks;
+
+    private List<CurrencyRate> history;
+    private Map<String, BigDecimal> latest;
+    private LocalDateTime now;
+    private LatestRatesSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        now = LocalDateTime.now();
+        history = new ArrayList<>();
+        for (int tick = 0; tick < ticks; tick++) {
+            latest = BenchmarkData.randomRates(tick);
+            LocalDateTime timestamp = now.minusMinutes(ticks - tick);
+            latest.forEach((code, rate) -> history.add(new CurrencyRate(code, rate, timestamp)));
+        }
+        snapshot = LatestRatesSnapshot.of(1, now, latest);
+    }
+
+    @Benchmark
+    public List<CurrencyResponseDto> historyScan() {
+        Map<String, CurrencyRate> newest = history.stream().collect(Collectors.toMap(
+                rate -> rate.getId().getCurrencyCode(),
+                rate -> rate,
+                (r1, r2) -> r1.getId().getTimestamp().isAfter(r2.getId().getTimestamp()) ? r1 : r2));
+        return newest.values().stream()
+                .sorted(Comparator.comparing(CurrencyRate::getRate).reversed())
+                .limit(5)
+                .map(rate -> new CurrencyResponseDto(rate.getCurrencyCode(), rate.getRate(), rate.getTimestamp()))
+                .toList();
+    }
+
+    @Benchmark
+    public List<CurrencyResponseDto> snapshotTop() {
+        return snapshot.top(5);
+    }
+
+    @Benchmark
+    public LatestRatesSnapshot publishSnapshot() {
+        return LatestRatesSnapshot.of(2, now, latest);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.currencyfetcher.cache;
+
+import com.example.currencyfetcher.dto.CacheStatsDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CacheEngineTest {
+
+    @Test
+    void shouldEvict_whenMaximumWeightIsExceeded() {
+        // Arrange
+        CacheEngine<String, String> engine = new CacheEngine<>("test", 10, (key, value) -> value.length());
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            engine.put("K" + i, "xx", Duration.ofMinutes(1));
+        }
+
+        // Assert
+        CacheStatsDto stats = engine.stats();
+        assertThat(stats.weight()).isLessThanOrEqualTo(10);
+        assertThat(stats.evictionCount()).isGreaterThanOrEqualTo(15);
+    }
+
+    @Test
+    void shouldKeepFrequentlyReadEntry_whileColdEntriesAreEvicted() {
+        // Arrange: fill the cache, then read one entry far more often than the rest
+        CacheEngine<String, String> engine = new CacheEngine<>("test", 50, (key, value) -> 1);
+        for (int i = 0; i < 50; i++) {
+            engine.put("WARM" + i, "x", Duration.ofMinutes(1));
+        }
+        engine.put("HOT", "0.91", Duration.ofMinutes(1));
+        engine.stats();
+        for (int i = 0; i < 20; i++) {
+            engine.getIfPresent("HOT", value -> true);
+            engine.stats();
+        }
+
+        // Act: stream cold keys, each written once and never read
+        for (int i = 0; i < 500; i++) {
+            engine.put("COLD" + i, "x", Duration.ofMinutes(1));
+            engine.stats();
+        }
+
+        // Assert
+        CacheStatsDto stats = engine.stats();
+        assertThat(stats.evictionCount()).isGreaterThanOrEqualTo(500);
+        assertThat(engine.peek("HOT")).isEqualTo("0.91");
+    }
+
+    @Test
+    void shouldExpireEachEntryAfterItsOwnDuration() throws InterruptedException {
+        // Arrange
+        CacheEngine<String, String> engine = new CacheEngine<>("test", 100, (key, value) -> 1);
+        engine.put("SHORT", "a", Duration.ofMillis(1));
+        engine.put("LONG", "b", Duration.ofMinutes(1));
+
+        // Act
+        Thread.sleep(10);
+
+        // Assert
+        assertThat(engine.peek("SHORT")).isNull();
+        assertThat(engine.peek("LONG")).isEqualTo("b");
+    }
+
+    @Test
+    void shouldRecordHitRatio_andLoadLatency() {
+        // Arrange
+        CacheEngine<String, String> engine = new CacheEngine<>("test", 100, (key, value) -> 1);
+        engine.put("EUR", "0.91", Duration.ofMinutes(1));
+
+        // Act
+        engine.getIfPresent("EUR", value -> true);
+        engine.getIfPresent("EUR", value -> true);
+        engine.getIfPresent("EUR", value -> false);
+        engine.getIfPresent("GBP", value -> true);
+        String loaded = engine.recordLoad(() -> "0.78");
+        assertThatThrownBy(() -> engine.recordLoad(() -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // Assert
+        CacheStatsDto stats = engine.stats();
+        assertThat(loaded).isEqualTo("0.78");
+        assertThat(stats.hitCount()).isEqualTo(2);
+        assertThat(stats.missCount()).isEqualTo(2);
+        assertThat(stats.hitRatio()).isEqualTo(0.5);
+        assertThat(stats.loadCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldExportStatistics_asCacheMeters() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CacheEngine<String, String> engine = new CacheEngine<>("test", 100, (key, value) -> 1);
+        engine.bindTo(registry);
+        engine.put("EUR", "0.91", Duration.ofMinutes(1));
+
+        // Act
+        engine.getIfPresent("EUR", value -> true);
+        engine.getIfPresent("GBP", value -> true);
+        engine.stats();
+
+        // Assert
+        assertThat(registry.get("cache.gets").tags("cache", "test", "result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tags("cache", "test", "result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.hit.ratio").tag("cache", "test").gauge().value()).isEqualTo(0.5);
+        assertThat(registry.get("cache.weight").tag("cache", "test").gauge().value()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.currencyfetcher.cache;
+
+import com.example.currencyfetcher.config.CacheProperties;
+import com.example.currencyfetcher.model.ScaledRate;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheServiceTest {
+
+    private final CacheProperties properties = new CacheProperties();
+    private final CacheService cacheService = new CacheService(properties);
+
+    @Test
+    void shouldCacheUnderRequestedCode_andAgeFromWhenCached() {
+        // Arrange: a rate that has not changed for a day
+        LocalDateTime rateTimestamp = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.MILLIS);
+
+        // Act
+        cacheService.update("gbp", new BigDecimal("0.78"), rateTimestamp);
+
+        // Assert
+        assertThat(cacheService.getIfFresh("GBP")).hasValueSatisfying(cached -> {
+            assertThat(cached.code()).isEqualTo("GBP");
+            assertThat(cached.timestamp()).isEqualTo(rateTimestamp);
+        });
+    }
+
+    @Test
+    void shouldServeExpiredEntry_onlyWithinMaxStale() throws InterruptedException {
+        // Arrange: the stale-serving window is fixed when an entry is written
+        properties.setTtl(Duration.ZERO);
+        cacheService.update("EUR", new BigDecimal("0.91"), LocalDateTime.now());
+        properties.setMaxStale(Duration.ofMinutes(5));
+        cacheService.update("GBP", new BigDecimal("0.78"), LocalDateTime.now());
+        Thread.sleep(5);
+
+        // Act & Assert
+        assertThat(cacheService.getIfFresh("EUR")).isEmpty();
+        assertThat(cacheService.getIfServable("EUR")).isEmpty();
+        assertThat(cacheService.getIfFresh("GBP")).isEmpty();
+        assertThat(cacheService.getIfServable("GBP")).isPresent();
+    }
+
+    @Test
+    void shouldWriteThroughIngestedRates_andReportEntriesDueForRefresh() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        cacheService.updateAll(List.of(
+                ScaledRate.of("EUR", new BigDecimal("0.91"), now),
+                ScaledRate.of("JPY", new BigDecimal("148.1235"), now)));
+
+        // Act & Assert
+        assertThat(cacheService.getIfFresh("JPY")).hasValueSatisfying(
+                cached -> assertThat(cached.rate()).isEqualByComparingTo("148.1235"));
+        assertThat(cacheService.dueForRefresh()).isEmpty();
+
+        properties.setRefreshAhead(properties.getTtl());
+        assertThat(cacheService.dueForRefresh()).containsExactlyInAnyOrder("EUR", "JPY");
+    }
+}
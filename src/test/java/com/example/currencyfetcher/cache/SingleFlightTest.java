@@ -0,0 +1,58 @@
+package com.example.currencyfetcher.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void shouldReleaseWaitingCallers_whenLeaderThrowsError() throws Exception {
+        // Arrange: the leader fails only once the follower is parked on its flight
+        StackOverflowError failure = new StackOverflowError("loader blew up");
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CompletableFuture<Thread> followerThread = new CompletableFuture<>();
+        CompletableFuture<String> leader = new CompletableFuture<>();
+        CompletableFuture<String> follower = new CompletableFuture<>();
+
+        Thread.ofPlatform().start(() -> run(leader, () -> singleFlight.load("EUR", () -> {
+            leaderStarted.countDown();
+            awaitParked(followerThread.join());
+            throw failure;
+        })));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        followerThread.complete(Thread.ofPlatform().start(
+                () -> run(follower, () -> singleFlight.load("EUR", () -> "never runs"))));
+
+        // Act & Assert: both callers see the same Error instead of the follower waiting forever
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThat(singleFlight.load("EUR", () -> "0.91")).isEqualTo("0.91");
+    }
+
+    private static void run(CompletableFuture<String> result, Supplier<String> call) {
+        try {
+            result.complete(call.get());
+        } catch (Throwable ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    private static void awaitParked(Thread thread) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
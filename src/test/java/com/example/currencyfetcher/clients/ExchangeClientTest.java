@@ -0,0 +1,99 @@
+package com.example.currencyfetcher.clients;
+
+import com.example.currencyfetcher.config.CurrencyApiProperties;
+import com.example.currencyfetcher.dto.CurrencyApiResponseDto;
+import com.example.currencyfetcher.exceptions.ExternalServiceException;
+import com.example.currencyfetcher.ingest.IngestStats;
+import com.example.currencyfetcher.support.StubExchangeProvider;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ExchangeClientTest {
+
+    private final StubExchangeProvider provider = new StubExchangeProvider();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IngestStats ingestStats = new IngestStats(meterRegistry);
+    private ExchangeClient exchangeClient;
+
+    @BeforeEach
+    void setUp() {
+        CurrencyApiProperties properties = new CurrencyApiProperties();
+        properties.setKey("test-key");
+        properties.setBaseUrl(provider.baseUrl());
+
+        RetryRegistry retryRegistry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(2)
+                .waitDuration(Duration.ofMillis(10))
+                .build());
+        exchangeClient = new ExchangeClient(WebClient.create(), properties, retryRegistry, ingestStats);
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.close();
+    }
+
+    @Test
+    void shouldReplayPreviousResponse_whenProviderAnswersNotModified() {
+        // Arrange
+        Instant lastUpdate = Instant.parse("2025-08-05T00:00:01Z");
+        Instant nextUpdate = Instant.parse("2025-08-06T00:00:01Z");
+        provider.publish("USD", Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal("0.91")), lastUpdate, nextUpdate);
+
+        // Act
+        CurrencyApiResponseDto first = exchangeClient.fetchLatestRates("USD").block();
+        CurrencyApiResponseDto second = exchangeClient.fetchLatestRates("USD").block();
+
+        // Assert
+        assertThat(first).isNotNull();
+        assertThat(first.conversionRates()).containsEntry("EUR", new BigDecimal("0.91"));
+        assertThat(first.timeLastUpdateUnix()).isEqualTo(lastUpdate.getEpochSecond());
+        assertThat(first.nextUpdate()).isEqualTo(nextUpdate);
+        assertThat(second).isSameAs(first);
+        assertThat(provider.notModified()).isEqualTo(1);
+        assertThat(ingestStats.snapshot().providerCalls()).isEqualTo(2);
+        assertThat(ingestStats.snapshot().notModified()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReturnNewRates_whenProviderPublishes() {
+        // Arrange
+        Instant lastUpdate = Instant.parse("2025-08-05T00:00:01Z");
+        provider.publish("USD", Map.of("EUR", new BigDecimal("0.91")), lastUpdate, lastUpdate.plus(Duration.ofDays(1)));
+        CurrencyApiResponseDto first = exchangeClient.fetchLatestRates("USD").block();
+
+        provider.publish("USD", Map.of("EUR", new BigDecimal("0.92")),
+                lastUpdate.plus(Duration.ofDays(1)), lastUpdate.plus(Duration.ofDays(2)));
+
+        // Act
+        CurrencyApiResponseDto second = exchangeClient.fetchLatestRates("USD").block();
+
+        // Assert
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.conversionRates()).containsEntry("EUR", new BigDecimal("0.92"));
+        assertThat(provider.notModified()).isZero();
+    }
+
+    @Test
+    void shouldFailAfterRetries_whenProviderHasNoRatesForBase() {
+        assertThatThrownBy(() -> exchangeClient.fetchLatestRates("XYZ").block())
+                .isInstanceOf(ExternalServiceException.class)
+                .hasMessageContaining("after retries");
+        assertThat(provider.requests()).isEqualTo(2);
+        assertThat(meterRegistry.get("currency.provider.retries").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("currency.provider.fetch").tags("base", "XYZ", "outcome", "error").timer().count())
+                .isEqualTo(1);
+    }
+}
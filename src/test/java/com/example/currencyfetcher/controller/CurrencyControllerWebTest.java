@@ -1,37 +1,64 @@
 package com.example.currencyfetcher.controller;
 
+import com.example.currencyfetcher.dto.BatchConversionResultDto;
+import com.example.currencyfetcher.dto.ConversionRequestDto;
 import com.example.currencyfetcher.dto.ConvertedCurrencyDto;
+import com.example.currencyfetcher.dto.CurrencyCandleDto;
 import com.example.currencyfetcher.dto.CurrencyRateHistoryDto;
 import com.example.currencyfetcher.dto.CurrencyResponseDto;
+import com.example.currencyfetcher.dto.HistoryPageDto;
 import com.example.currencyfetcher.exceptions.ExternalServiceException;
 import com.example.currencyfetcher.exceptions.InvalidCurrencyException;
+import com.example.currencyfetcher.model.CandleGranularity;
 import com.example.currencyfetcher.service.CurrencyService;
+import com.example.currencyfetcher.snapshot.LatestRatesHolder;
+import com.example.currencyfetcher.validation.CurrencyValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(CurrencyController.class)
+@Import(LatestRatesHolder.class)
 class CurrencyControllerWebTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private LatestRatesHolder latestRates;
+
     @MockitoBean
     private CurrencyService currencyService;
 
+    @MockitoBean
+    private CurrencyValidator validator;
+
     private CurrencyResponseDto usdResponse;
     private CurrencyRateHistoryDto historyDto;
     private ConvertedCurrencyDto converted;
@@ -83,6 +110,51 @@ class CurrencyControllerWebTest {
         verify(currencyService).convert("USD", "EUR", new BigDecimal("10"));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchConvertEndpoint_streamsResultsWithInlineErrors() throws Exception {
+        when(currencyService.convertBatch(any())).thenAnswer(invocation -> {
+            Stream<ConversionRequestDto> requests = invocation.getArgument(0);
+            AtomicInteger index = new AtomicInteger();
+            return requests.map(request -> "XYZ".equals(request.to())
+                    ? BatchConversionResultDto.failure(index.getAndIncrement(), request.from(), request.to(),
+                            request.amount(), "Unsupported currency code: XYZ")
+                    : BatchConversionResultDto.success(index.getAndIncrement(), request.from(), request.to(),
+                            request.amount(), request.amount().multiply(new BigDecimal("0.95"))));
+        });
+
+        mockMvc.perform(post("/api/currency/convert/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"from":"USD","to":"EUR","amount":10},
+                                 {"from":"USD","to":"XYZ","amount":5}]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].convertedAmount").value(9.5))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value("Unsupported currency code: XYZ"));
+
+        mockMvc.perform(post("/api/currency/convert/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"from\":\"USD\",\"to\":\"EUR\",\"amount\":10}\n"
+                                + "{\"from\":\"USD\",\"to\":\"EUR\",\"amount\":20}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"index\":0,\"from\":\"USD\",\"to\":\"EUR\",\"amount\":10,\"convertedAmount\":9.50}\n"
+                                + "{\"index\":1,\"from\":\"USD\",\"to\":\"EUR\",\"amount\":20,\"convertedAmount\":19.00}\n"));
+
+        mockMvc.perform(post("/api/currency/convert/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"from\":\"USD\",\"to\":\"EUR\",\"amount\":10}, {\"from\": oops}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].convertedAmount").value(9.5))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value(startsWith("Malformed request item")));
+    }
+
     @Test
     void testFilterEndpoint() throws Exception {
         when(currencyService.filterByMinRate(anyDouble())).thenReturn(List.of(usdResponse));
@@ -108,16 +180,75 @@ class CurrencyControllerWebTest {
         verify(currencyService).getTopCurrencies(1);
     }
 
+    @Test
+    void testRatesForBaseEndpoint() throws Exception {
+        when(currencyService.getRatesForBase(eq("EUR"))).thenReturn(List.of(usdResponse));
+
+        mockMvc.perform(get("/api/currency/rates/EUR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].currencyCode").value("USD"));
+
+        verify(currencyService).getRatesForBase("EUR");
+    }
+
     @Test
     void testHistoryEndpoint() throws Exception {
-        when(currencyService.getHistoryForCurrency(eq("USD"))).thenReturn(List.of(historyDto));
+        LocalDateTime cursor = LocalDateTime.of(2024, 1, 1, 12, 0);
+        when(currencyService.getHistoryForCurrency(eq("USD"), any(), any(), any(), anyInt()))
+                .thenReturn(new HistoryPageDto(List.of(historyDto), cursor));
 
-        mockMvc.perform(get("/api/currency/history/USD"))
+        mockMvc.perform(get("/api/currency/history/USD")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("limit", "1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2024-01-01T12:00"))
                 .andExpect(jsonPath("$[0].currencyCode").value("USD"))
                 .andExpect(jsonPath("$[0].rate", closeTo(1.0, 0.0001)));
 
-        verify(currencyService).getHistoryForCurrency("USD");
+        verify(currencyService).getHistoryForCurrency("USD", LocalDateTime.of(2024, 1, 1, 0, 0), null, null, 1);
+    }
+
+    @Test
+    void testCandlesEndpoint() throws Exception {
+        CurrencyCandleDto candle = new CurrencyCandleDto("USD", CandleGranularity.DAY, LocalDateTime.of(2024, 1, 1, 0, 0),
+                new BigDecimal("1.0000"), new BigDecimal("1.0100"), new BigDecimal("0.9900"), new BigDecimal("1.0050"));
+        when(currencyService.getCandlesForCurrency(eq("USD"), eq(CandleGranularity.DAY), any(), any(), anyInt()))
+                .thenReturn(List.of(candle));
+
+        mockMvc.perform(get("/api/currency/history/USD/ohlc").param("granularity", "DAY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].granularity").value("DAY"))
+                .andExpect(jsonPath("$[0].high", closeTo(1.01, 0.0001)))
+                .andExpect(jsonPath("$[0].close", closeTo(1.005, 0.0001)));
+
+        verify(currencyService).getCandlesForCurrency("USD", CandleGranularity.DAY, null, null, 500);
+    }
+
+    @Test
+    void testHistoryStreamEndpoint() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<CurrencyRateHistoryDto> sink = invocation.getArgument(3);
+            sink.accept(new CurrencyRateHistoryDto("USD", new BigDecimal("1.0000"), LocalDateTime.of(2024, 1, 1, 12, 0)));
+            sink.accept(new CurrencyRateHistoryDto("USD", new BigDecimal("0.9900"), LocalDateTime.of(2024, 1, 1, 11, 0)));
+            return null;
+        }).when(currencyService).streamHistoryForCurrency(eq("USD"), any(), any(), any());
+
+        mockMvc.perform(get("/api/currency/history/USD/stream"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"currencyCode\":\"USD\",\"rate\":1.0000,\"timestamp\":\"2024-01-01T12:00:00\"}\n"
+                                + "{\"currencyCode\":\"USD\",\"rate\":0.9900,\"timestamp\":\"2024-01-01T11:00:00\"}\n"));
+    }
+
+    @Test
+    void shouldReturn400_whenStreamingHistoryOfUnsupportedCurrency() throws Exception {
+        doThrow(new InvalidCurrencyException("Unsupported currency code: XYZ"))
+                .when(currencyService).streamHistoryForCurrency(eq("XYZ"), any(), any(), any());
+
+        mockMvc.perform(get("/api/currency/history/XYZ/stream"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Currency"));
     }
 
     @Test
@@ -133,6 +264,106 @@ class CurrencyControllerWebTest {
                 .andExpect(jsonPath("$.path").value("/api/currency/XYZ"));
     }
 
+    @Test
+    void shouldAnswer304_withoutBody_whenSnapshotIsUnchanged() throws Exception {
+        latestRates.publish(LocalDateTime.of(2024, 1, 1, 12, 0), Map.of("USD", BigDecimal.ONE));
+        when(currencyService.getRatesForCurrency("USD")).thenReturn(usdResponse);
+
+        // Snapshot timestamps are local time: noon in Tokyo is 03:00 GMT
+        TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        MvcResult first;
+        try {
+            first = mockMvc.perform(get("/api/currency/USD"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists(HttpHeaders.ETAG))
+                    .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Mon, 01 Jan 2024 03:00:00 GMT"))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                    .andReturn();
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+
+        mockMvc.perform(get("/api/currency/USD")
+                        .header(HttpHeaders.IF_NONE_MATCH, first.getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(content().string(""));
+
+        verify(currencyService, times(1)).getRatesForCurrency("USD");
+    }
+
+    @Test
+    void shouldAnswer304_withoutCallingService_forEverySnapshotEndpoint() throws Exception {
+        latestRates.publish(LocalDateTime.of(2024, 1, 1, 12, 0), Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal("0.9")));
+        when(currencyService.getTopCurrencies(anyInt())).thenReturn(List.of(usdResponse));
+        String etag = mockMvc.perform(get("/api/currency/top"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        clearInvocations(currencyService);
+
+        mockMvc.perform(get("/api/currency/top").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/currency/filter").param("minRate", "0.5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/currency/EUR").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/currency/convert")
+                        .param("from", "USD").param("to", "EUR").param("amount", "10")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/currency/rates/EUR").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        verifyNoInteractions(currencyService);
+    }
+
+    @Test
+    void shouldReturnError_notNotModified_forUnknownCodeWithCurrentETag() throws Exception {
+        latestRates.publish(LocalDateTime.of(2024, 1, 1, 12, 0), Map.of("USD", BigDecimal.ONE));
+        when(currencyService.getTopCurrencies(anyInt())).thenReturn(List.of(usdResponse));
+        doThrow(new InvalidCurrencyException("XYZ")).when(validator).validate("XYZ");
+        // GBP is a supported code the snapshot does not hold, so the service decides
+        when(currencyService.getRatesForCurrency("GBP")).thenThrow(new InvalidCurrencyException("GBP"));
+        String etag = mockMvc.perform(get("/api/currency/top"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/currency/XYZ").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        mockMvc.perform(get("/api/currency/convert")
+                        .param("from", "USD").param("to", "XYZ").param("amount", "10")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/currency/GBP").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        mockMvc.perform(get("/api/currency/top").param("limit", "-1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("limit must not be negative")));
+        mockMvc.perform(get("/api/currency/filter").param("minRate", "-1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isBadRequest());
+
+        verify(currencyService).getRatesForCurrency("GBP");
+        verify(currencyService, never()).convert(any(), any(), any());
+    }
+
+    @Test
+    void shouldServeFullBody_onceNewSnapshotIsPublished() throws Exception {
+        latestRates.publish(LocalDateTime.of(2024, 1, 1, 12, 0), Map.of("USD", BigDecimal.ONE));
+        when(currencyService.getTopCurrencies(anyInt())).thenReturn(List.of(usdResponse));
+        String etag = mockMvc.perform(get("/api/currency/top"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        latestRates.publish(LocalDateTime.of(2024, 1, 1, 12, 1), Map.of("USD", BigDecimal.ONE));
+
+        mockMvc.perform(get("/api/currency/top").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$[0].currencyCode").value("USD"));
+
+        verify(currencyService, times(2)).getTopCurrencies(5);
+    }
+
     @Test
     void shouldReturn503_whenExternalServiceFails() throws Exception {
         when(currencyService.getRatesForCurrency(eq("USD")))
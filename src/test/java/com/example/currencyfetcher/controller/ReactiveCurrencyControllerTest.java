@@ -0,0 +1,119 @@
+package com.example.currencyfetcher.controller;
+
+import com.example.currencyfetcher.config.CacheProperties;
+import com.example.currencyfetcher.dto.CurrencyResponseDto;
+import com.example.currencyfetcher.exceptions.InvalidCurrencyException;
+import com.example.currencyfetcher.service.CurrencyService;
+import com.example.currencyfetcher.snapshot.LatestRatesHolder;
+import com.example.currencyfetcher.validation.CurrencyValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveCurrencyController.class)
+@Import(LatestRatesHolder.class)
+class ReactiveCurrencyControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private LatestRatesHolder latestRates;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @MockitoBean
+    private CurrencyValidator validator;
+
+    @MockitoBean
+    private CurrencyService currencyService;
+
+    @BeforeEach
+    void setUp() {
+        latestRates.publish(LocalDateTime.of(2024, 1, 1, 12, 0), Map.of(
+                "USD", BigDecimal.ONE,
+                "EUR", new BigDecimal("0.5"),
+                "JPY", new BigDecimal("150")));
+    }
+
+    @Test
+    void testCurrencyRatesEndpoint() {
+        webTestClient.get().uri("/api/currency/EUR")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.currencyCode").isEqualTo("EUR")
+                .jsonPath("$.rate").isEqualTo(0.5);
+    }
+
+    @Test
+    void testConvertEndpoint() {
+        webTestClient.get().uri("/api/currency/convert?from=EUR&to=JPY&amount=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.from").isEqualTo("EUR")
+                .jsonPath("$.convertedAmount").isEqualTo(600.0);
+    }
+
+    @Test
+    void testTopCurrenciesEndpoint() {
+        webTestClient.get().uri("/api/currency/top?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].currencyCode").isEqualTo("JPY")
+                .jsonPath("$[1].currencyCode").isEqualTo("USD");
+    }
+
+    @Test
+    void shouldFallBackToService_onceSnapshotIsOlderThanTtlPlusMaxStale() throws InterruptedException {
+        // Arrange: a zero TTL makes the snapshot published in setUp too old as soon as the clock moves
+        Duration ttl = cacheProperties.getTtl();
+        cacheProperties.setTtl(Duration.ZERO);
+        when(currencyService.getRatesForCurrency("EUR"))
+                .thenReturn(new CurrencyResponseDto("EUR", new BigDecimal("0.4"), LocalDateTime.of(2024, 1, 1, 13, 0)));
+        when(currencyService.convert("EUR", "JPY", new BigDecimal("2")))
+                .thenThrow(new InvalidCurrencyException("EUR"));
+        Thread.sleep(5);
+
+        try {
+            // Act & Assert
+            webTestClient.get().uri("/api/currency/EUR")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.rate").isEqualTo(0.4);
+            webTestClient.get().uri("/api/currency/convert?from=EUR&to=JPY&amount=2")
+                    .exchange()
+                    .expectStatus().isBadRequest();
+        } finally {
+            cacheProperties.setTtl(ttl);
+        }
+    }
+
+    @Test
+    void shouldReturn400_whenInvalidCurrencyProvided() {
+        doThrow(new InvalidCurrencyException("Unsupported currency")).when(validator).validate("XYZ");
+
+        webTestClient.get().uri("/api/currency/XYZ")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Invalid Currency")
+                .jsonPath("$.path").isEqualTo("/api/currency/XYZ");
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.currencyfetcher.history;
+
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyRate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedFileRateHistoryStoreTest {
+
+    // Three records per segment, so a handful of rows already spans several mappings
+    private static final int SEGMENT_BYTES = 4 * RateSeriesFile.RECORD_BYTES;
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 4, 10, 0);
+
+    @TempDir
+    private Path directory;
+
+    private MappedFileRateHistoryStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = reopen();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Rates are appended per currency and read back newest first across segments")
+    void appendsAndReadsAcrossSegments() {
+        for (int i = 0; i < 8; i++) {
+            store.insertAll(List.of(rate("EUR", T0.plusMinutes(i), "0.90" + i), rate("GBP", T0.plusMinutes(i), "0.70")));
+        }
+
+        assertThat(store.findUpTo("EUR", T0.plusMinutes(2), T0.plusMinutes(6), 3))
+                .extracting(CurrencyRate::getTimestamp)
+                .containsExactly(T0.plusMinutes(6), T0.plusMinutes(5), T0.plusMinutes(4));
+        assertThat(store.findBefore("EUR", T0, T0.plusMinutes(2), 10))
+                .containsExactly(rate("EUR", T0.plusMinutes(1), "0.901"), rate("EUR", T0, "0.900"));
+        assertThat(store.findEffectiveAt("EUR", T0.plusMinutes(3).plusSeconds(30)).map(CurrencyRate::getRate))
+                .hasValueSatisfying(rate -> assertThat(rate).isEqualByComparingTo("0.903"));
+        assertThat(store.findUpTo("CHF", T0, T0.plusHours(1), 10)).isEmpty();
+        // A timestamp that is not after the newest one is not appended
+        assertThat(store.insertAll(List.of(rate("EUR", T0.plusMinutes(7), "1.0")))).isZero();
+    }
+
+    @Test
+    @DisplayName("Streaming passes every row of the window in chunks")
+    void streamsWholeWindow() {
+        List<CurrencyRate> rows = new ArrayList<>();
+        for (int i = 0; i < 2_500; i++) {
+            rows.add(rate("JPY", T0.plusMinutes(i), "149.5"));
+        }
+        store.insertAll(rows);
+
+        List<LocalDateTime> streamed = new ArrayList<>();
+        store.stream("JPY", T0.plusMinutes(10), T0.plusMinutes(2_400), rate -> streamed.add(rate.getTimestamp()));
+
+        assertThat(streamed).hasSize(2_391).startsWith(T0.plusMinutes(2_400)).endsWith(T0.plusMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Reopening restores every series and keeps appending after its newest record")
+    void reopensFromFiles() throws IOException {
+        store.insertAll(List.of(rate("EUR", T0, "0.90"), rate("EUR", T0.plusMinutes(1), "0.91"),
+                rate("EUR", T0.plusMinutes(2), "0.92"), rate("GBP", T0, "0.70")));
+        store.close();
+
+        store = reopen();
+        store.insertAll(List.of(rate("EUR", T0.plusMinutes(3), "0.93")));
+
+        assertThat(store.findUpTo("EUR", T0, T0.plusHours(1), 10)).hasSize(4);
+        assertThat(store.findNewestPerCurrency()).containsExactlyInAnyOrder(
+                rate("EUR", T0.plusMinutes(3), "0.93"), rate("GBP", T0, "0.70"));
+        assertThat(store.findOldestTimestamp()).isEqualTo(T0);
+    }
+
+    @Test
+    @DisplayName("A trailing record out of time order is dropped on reopen")
+    void dropsTornTailOnReopen() throws IOException {
+        store.insertAll(List.of(rate("EUR", T0, "0.90"), rate("EUR", T0.plusMinutes(1), "0.91")));
+        store.close();
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("EUR.rates").toFile(), "rw")) {
+            // A third record whose timestamp is older than its predecessor
+            file.seek(3L * RateSeriesFile.RECORD_BYTES);
+            file.writeLong(T0.toInstant(ZoneOffset.UTC).toEpochMilli() - 1);
+        }
+
+        store = reopen();
+
+        assertThat(store.findUpTo("EUR", T0.minusDays(1), T0.plusDays(1), 10))
+                .extracting(CurrencyRate::getTimestamp)
+                .containsExactly(T0.plusMinutes(1), T0);
+        assertThat(store.insertAll(List.of(rate("EUR", T0.plusMinutes(2), "0.92")))).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Retention thins a window to the last rate per hour and drops rows before a cutoff")
+    void thinsAndDrops() throws IOException {
+        store.insertAll(List.of(rate("EUR", T0, "0.80")));
+        store.insertAll(List.of(rate("EUR", T0.plusMinutes(20), "0.81")));
+        store.insertAll(List.of(rate("EUR", T0.plusMinutes(40), "0.82")));
+        store.insertAll(List.of(rate("EUR", T0.plusMinutes(65), "0.83")));
+        store.insertAll(List.of(rate("EUR", T0.plusDays(1), "0.84")));
+
+        assertThat(store.thin("EUR", T0, T0.plusDays(1), CandleGranularity.HOUR, 1)).isEqualTo(1);
+        assertThat(store.thin("EUR", T0, T0.plusDays(1), CandleGranularity.HOUR, 10)).isEqualTo(1);
+        assertThat(store.dropBefore(T0.plusHours(1), 1_000)).isEqualTo(1);
+        store.close();
+
+        store = reopen();
+        assertThat(store.findUpTo("EUR", T0, T0.plusDays(2), 10))
+                .extracting(CurrencyRate::getTimestamp)
+                .containsExactly(T0.plusDays(1), T0.plusMinutes(65));
+    }
+
+    @Test
+    @DisplayName("A range of several days is thinned in one call")
+    void thinsWholeRangeAtOnce() {
+        for (int day = 0; day < 3; day++) {
+            for (int minute = 0; minute < 60; minute += 20) {
+                store.insertAll(List.of(rate("EUR", T0.plusDays(day).plusMinutes(minute), "0.8" + day)));
+            }
+        }
+        List<Integer> calls = new ArrayList<>();
+
+        store.thinRange("EUR", T0.truncatedTo(ChronoUnit.DAYS), T0.plusDays(3), CandleGranularity.HOUR, 1, calls::add);
+
+        assertThat(calls).containsExactly(6);
+        assertThat(store.findUpTo("EUR", T0, T0.plusDays(3), 10))
+                .extracting(CurrencyRate::getTimestamp)
+                .containsExactly(T0.plusDays(2).plusMinutes(40), T0.plusDays(1).plusMinutes(40), T0.plusMinutes(40));
+    }
+
+    @Test
+    @DisplayName("A thinning interrupted after its redo file was committed is completed on reopen")
+    void completesInterruptedRewriteOnReopen() throws IOException {
+        for (int minute = 0; minute < 60; minute += 10) {
+            store.insertAll(List.of(rate("EUR", T0.plusMinutes(minute), "0.80")));
+        }
+        store.close();
+        Path series = directory.resolve("EUR.rates");
+        byte[] before = Files.readAllBytes(series);
+        store = reopen();
+        store.thin("EUR", T0, T0.plusHours(1), CandleGranularity.HOUR, 10);
+        store.close();
+        // As if the process died after committing the new content but before rewriting the series
+        Files.move(series, directory.resolve("EUR.rates.redo"));
+        Files.write(series, before);
+
+        store = reopen();
+
+        assertThat(directory.resolve("EUR.rates.redo")).doesNotExist();
+        assertThat(store.findUpTo("EUR", T0, T0.plusHours(1), 10))
+                .extracting(CurrencyRate::getTimestamp)
+                .containsExactly(T0.plusMinutes(50));
+        assertThat(store.insertAll(List.of(rate("EUR", T0.plusHours(1), "0.81")))).isEqualTo(1);
+    }
+
+    private MappedFileRateHistoryStore reopen() throws IOException {
+        MappedFileRateHistoryStore opened = new MappedFileRateHistoryStore(directory, SEGMENT_BYTES);
+        opened.open();
+        return opened;
+    }
+
+    private static CurrencyRate rate(String code, LocalDateTime timestamp, String rate) {
+        return new CurrencyRate(code, new BigDecimal(rate), timestamp);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.currencyfetcher.history;
+
+import com.example.currencyfetcher.config.CurrencyApiProperties;
+import com.example.currencyfetcher.config.IngestProperties;
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyRate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+class NormalizedRateHistoryStoreTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 4, 10, 0);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    private NormalizedRateHistoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        CurrencyApiProperties api = new CurrencyApiProperties();
+        api.setBaseUrl("https://rates.example.com/v1");
+        store = new NormalizedRateHistoryStore(jdbcTemplate, transactionManager, api, new IngestProperties());
+        store.loadCurrencyIds();
+    }
+
+    @Test
+    @DisplayName("A tick is stored as one batch row, and rates read back per currency")
+    void storesOneBatchPerTick() {
+        store.insertAll(List.of(rate("EUR", T0, "0.9123"), rate("GBP", T0, "0.7801"), rate("JPY", T0, "149.5")));
+        store.insertAll(List.of(rate("EUR", T0.plusMinutes(1), "0.9130")));
+        store.insertAll(List.of(rate("GBP", T0.plusMinutes(1), "0.7805"))); // same tick, later call
+
+        assertThat(jdbcTemplate.queryForList("SELECT timestamp, source, base FROM rate_batches ORDER BY timestamp"))
+                .extracting(row -> row.get("SOURCE") + "/" + row.get("BASE"))
+                .containsExactly("rates.example.com/USD", "rates.example.com/USD");
+        assertThat(store.findUpTo("EUR", T0, T0.plusHours(1), 10))
+                .containsExactly(rate("EUR", T0.plusMinutes(1), "0.9130"), rate("EUR", T0, "0.9123"));
+        assertThat(store.findBefore("GBP", T0, T0.plusMinutes(1), 10))
+                .singleElement()
+                .satisfies(row -> assertThat(row.getRate()).isEqualByComparingTo("0.7801"));
+        assertThat(store.findUpTo("CHF", T0, T0.plusHours(1), 10)).isEmpty();
+        assertThat(store.findNewestPerCurrency())
+                .extracting(CurrencyRate::getCurrencyCode, CurrencyRate::getTimestamp)
+                .containsExactlyInAnyOrder(
+                        tuple("EUR", T0.plusMinutes(1)),
+                        tuple("GBP", T0.plusMinutes(1)),
+                        tuple("JPY", T0));
+    }
+
+    @Test
+    @DisplayName("The rate in effect comes from the newest batch that holds the currency")
+    void findsEffectiveRateAcrossBatchesWithoutIt() {
+        store.insertAll(List.of(rate("EUR", T0, "0.9100"), rate("GBP", T0, "0.7800")));
+        store.insertAll(List.of(rate("GBP", T0.plusMinutes(5), "0.7810")));
+
+        assertThat(store.findEffectiveAt("EUR", T0.plusMinutes(7))).hasValue(rate("EUR", T0, "0.9100"));
+        assertThat(store.findEffectiveAt("EUR", T0.minusSeconds(1))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Thinning keeps the last rate of each hour and drops batches it empties")
+    void thinsRatesAndEmptyBatches() {
+        store.insertAll(List.of(rate("EUR", T0, "0.80")));
+        store.insertAll(List.of(rate("EUR", T0.plusMinutes(20), "0.81"), rate("GBP", T0.plusMinutes(20), "0.70")));
+        store.insertAll(List.of(rate("EUR", T0.plusMinutes(40), "0.82")));
+        store.insertAll(List.of(rate("EUR", T0.plusMinutes(65), "0.83")));
+
+        int deleted = store.thin("EUR", T0, T0.plusDays(1), CandleGranularity.HOUR, 100);
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(store.findUpTo("EUR", T0, T0.plusDays(1), 10)).extracting(CurrencyRate::getTimestamp)
+                .containsExactly(T0.plusMinutes(65), T0.plusMinutes(40));
+        // The 10:20 batch still holds GBP, the 10:00 one is gone
+        assertThat(store.findOldestTimestamp()).isEqualTo(T0.plusMinutes(20));
+    }
+
+    @Test
+    @DisplayName("Rows before the cutoff are dropped together with their batches")
+    void dropsRowsBeforeCutoff() {
+        store.insertAll(List.of(rate("EUR", T0, "0.90"), rate("GBP", T0, "0.70")));
+        store.insertAll(List.of(rate("EUR", T0.plusDays(1), "0.91")));
+
+        long dropped = store.dropBefore(T0.plusHours(1), 1);
+
+        assertThat(dropped).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT timestamp FROM rate_batches", LocalDateTime.class))
+                .containsExactly(T0.plusDays(1));
+        assertThat(store.findEffectiveAt("EUR", T0.plusDays(2)).map(CurrencyRate::getRate))
+                .hasValueSatisfying(rate -> assertThat(rate).isEqualByComparingTo("0.91"));
+    }
+
+    @Test
+    @DisplayName("Concurrent first writes of new currencies each get one id")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // the writers commit on their own threads
+    void assignsIdsOnceUnderConcurrentWrites() {
+        List<String> codes = List.of("AAA", "BBB", "CCC", "DDD");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 40; i++) {
+                var row = rate(codes.get(i % codes.size()), T0.plusMinutes(i), "1.5");
+                executor.submit(() -> store.insertAll(List.of(row)));
+            }
+        }
+
+        try {
+            assertThat(jdbcTemplate.queryForList(
+                    "SELECT code FROM currency_keys WHERE code IN ('AAA', 'BBB', 'CCC', 'DDD')", String.class))
+                    .containsExactlyInAnyOrderElementsOf(codes);
+            assertThat(store.findUpTo("CCC", T0, T0.plusHours(1), 100)).hasSize(10);
+        } finally {
+            store.dropBefore(LocalDateTime.MAX, 1_000);
+        }
+    }
+
+    private static CurrencyRate rate(String code, LocalDateTime timestamp, String rate) {
+        return new CurrencyRate(code, new BigDecimal(rate), timestamp);
+    }
+}
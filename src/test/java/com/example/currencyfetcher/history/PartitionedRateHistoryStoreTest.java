@@ -0,0 +1,112 @@
+package com.example.currencyfetcher.history;
+
+import com.example.currencyfetcher.model.CurrencyRate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Partitions are DDL and outlive a rolled back test, so every test writes its own currency and months.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PartitionedRateHistoryStoreTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PartitionedRateHistoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new PartitionedRateHistoryStore(new JdbcTemplate(dataSource), transactionManager);
+        store.loadPartitions();
+    }
+
+    @Test
+    @DisplayName("Rows land in their month, and a recent window only reads the newest partition")
+    void routesRowsAndPrunesPartitions() {
+        var jan = LocalDateTime.of(2019, 1, 15, 10, 0);
+        store.insertAll(List.of(
+                rate("PLN", jan, "4.30"),
+                rate("PLN", jan.plusMonths(1), "4.31"),
+                rate("PLN", jan.plusMonths(2), "4.32"),
+                rate("PLN", jan.plusMonths(2).plusDays(1), "4.33")));
+
+        assertThat(store.overlapping(jan.plusMonths(2), jan.plusMonths(2).plusDays(5)))
+                .singleElement().asString().isEqualToIgnoringCase("currency_rates_p201903");
+        assertThat(store.findUpTo("PLN", jan.plusMonths(2), jan.plusMonths(3), 10))
+                .extracting(CurrencyRate::getTimestamp)
+                .containsExactly(jan.plusMonths(2).plusDays(1), jan.plusMonths(2));
+        // Across partitions, newest first, stopping once the page is full
+        assertThat(store.findBefore("PLN", jan, jan.plusMonths(2), 2))
+                .extracting(CurrencyRate::getTimestamp)
+                .containsExactly(jan.plusMonths(1), jan);
+    }
+
+    @Test
+    @DisplayName("The rate in effect is found in an earlier month when the current one has none")
+    void findsEffectiveRateAcrossMonths() {
+        var feb = LocalDateTime.of(2018, 2, 20, 8, 0);
+        store.insertAll(List.of(rate("HUF", feb, "310.5"), rate("HUF", feb.plusMonths(1).plusDays(5), "312.0")));
+
+        assertThat(store.findEffectiveAt("HUF", LocalDateTime.of(2018, 3, 10, 0, 0)))
+                .hasValue(rate("HUF", feb, "310.5"));
+        assertThat(store.findEffectiveAt("HUF", feb.minusDays(1))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Retention drops whole months before the cutoff month")
+    void dropsWholePartitions() {
+        var jan = LocalDateTime.of(2017, 1, 5, 0, 0);
+        store.insertAll(List.of(
+                rate("CZK", jan, "27.0"),
+                rate("CZK", jan.plusDays(20), "27.1"),
+                rate("CZK", jan.plusMonths(1), "27.2")));
+
+        long dropped = store.dropBefore(LocalDateTime.of(2017, 2, 15, 0, 0), 1000);
+
+        assertThat(dropped).isEqualTo(2);
+        assertThat(store.findUpTo("CZK", jan, jan.plusMonths(2), 10))
+                .extracting(CurrencyRate::getTimestamp)
+                .containsExactly(jan.plusMonths(1));
+    }
+
+    @Test
+    @DisplayName("Concurrent first writes to a month create its partition once and keep every row")
+    void createsPartitionOnceUnderConcurrentWrites() {
+        var month = LocalDateTime.of(2017, 6, 1, 0, 0);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                var timestamp = month.plusMinutes(i);
+                executor.submit(() -> store.insertAll(List.of(rate("HUF", timestamp, "390.5"))));
+            }
+        }
+
+        assertThat(store.overlapping(month, month.plusDays(1))).singleElement().asString()
+                .isEqualToIgnoringCase("currency_rates_p201706");
+        assertThat(store.findUpTo("HUF", month, month.plusDays(1), 100)).hasSize(50);
+    }
+
+    private static CurrencyRate rate(String code, LocalDateTime timestamp, String rate) {
+        return new CurrencyRate(code, new BigDecimal(rate), timestamp);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.currencyfetcher.ingest;
+
+import com.example.currencyfetcher.config.IngestProperties;
+import com.example.currencyfetcher.model.CurrencyRate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeOnlyFilterTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private IngestProperties properties;
+    private ChangeOnlyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestProperties();
+        properties.setChangeOnly(true);
+        properties.setHeartbeatInterval(Duration.ofMinutes(10));
+        filter = new ChangeOnlyFilter(properties);
+    }
+
+    @Test
+    void shouldKeepOnlyMovedRates_untilHeartbeatIsDue() {
+        filter.markPersisted(filter.select(tick(start, "1.0000", "7.8000")));
+
+        // One minute later only EUR moved
+        List<CurrencyRate> second = filter.select(tick(start.plusMinutes(1), "1.0100", "7.8000"));
+        assertThat(second).extracting(CurrencyRate::getCurrencyCode).containsExactly("EUR");
+        filter.markPersisted(second);
+
+        // At the heartbeat, the unchanged HKD rate is written again
+        List<CurrencyRate> heartbeat = filter.select(tick(start.plusMinutes(10), "1.0100", "7.8000"));
+        assertThat(heartbeat).extracting(CurrencyRate::getCurrencyCode).containsExactly("HKD");
+    }
+
+    @Test
+    void shouldKeepEverything_whenChangeOnlyIsDisabled() {
+        properties.setChangeOnly(false);
+        filter.markPersisted(filter.select(tick(start, "1.0000", "7.8000")));
+
+        assertThat(filter.select(tick(start.plusMinutes(1), "1.0000", "7.8000"))).hasSize(2);
+    }
+
+    @Test
+    void shouldNotRewriteUnchangedRates_afterSeedingFromPreviousRun() {
+        filter.seed(tick(start, "1.0000", "7.8000"));
+
+        List<CurrencyRate> first = filter.select(tick(start.plusMinutes(1), "1.0100", "7.8000"));
+
+        assertThat(first).extracting(CurrencyRate::getCurrencyCode).containsExactly("EUR");
+    }
+
+    private List<CurrencyRate> tick(LocalDateTime timestamp, String eur, String hkd) {
+        return List.of(
+                new CurrencyRate("EUR", new BigDecimal(eur), timestamp),
+                new CurrencyRate("HKD", new BigDecimal(hkd), timestamp));
+    }
+}
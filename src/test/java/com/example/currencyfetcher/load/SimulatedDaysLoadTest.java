@@ -0,0 +1,298 @@
+package com.example.currencyfetcher.load;
+
+import com.example.currencyfetcher.CurrencyFetcherApplication;
+import com.example.currencyfetcher.dto.IngestStatsDto;
+import com.example.currencyfetcher.service.CurrencyService;
+import com.example.currencyfetcher.snapshot.LatestRatesHolder;
+import com.example.currencyfetcher.support.StubExchangeProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Offline end-to-end load test. Boots the application against a {@link StubExchangeProvider} that publishes
+ * new rates on a compressed clock, drives the REST endpoints at a fixed request rate while the scheduler ingests
+ * in the background, and reports per simulated day: throughput, p50/p99/p999 latency, errors and DB row growth.
+ * <p>
+ * Requests are sent open-loop, one every {@code 1 / load.rate} seconds whether or not earlier ones completed,
+ * and latency is measured from when a request was due, so a stalled server shows up in the percentiles.
+ * <p>
+ * Opt-in; every knob is a system property (default in brackets):
+ * <ul>
+ *     <li>{@code load.rate} [100] requests per second</li>
+ *     <li>{@code load.days} [3] simulated days, {@code load.day-length} [20s] real time per simulated day</li>
+ *     <li>{@code load.publications-per-day} [24] how often the provider publishes new rates</li>
+ *     <li>{@code load.currencies} [163] rates per provider response</li>
+ *     <li>{@code load.change-probability} [0.3] chance that a rate moves between publications</li>
+ *     <li>{@code load.provider-latency} [200ms] and {@code load.provider-error-rate} [0.05] of the stub</li>
+ *     <li>{@code load.warmup} [5s] of traffic before day 1, not reported</li>
+ * </ul>
+ * <pre>mvn test -Dtest=SimulatedDaysLoadTest -Dload.test=true -Dload.rate=200 -Dload.days=7</pre>
+ */
+@EnabledIfSystemProperty(named = "load.test", matches = "true")
+class SimulatedDaysLoadTest {
+
+    private static final List<String> BASES = List.of("USD", "EUR", "GBP", "JPY");
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofMinutes(15); // simulated time, as in application.yml
+
+    private final int requestRate = Integer.getInteger("load.rate", 100);
+    private final int days = Integer.getInteger("load.days", 3);
+    private final Duration dayLength = duration("load.day-length", "20s");
+    private final int publicationsPerDay = Integer.getInteger("load.publications-per-day", 24);
+    private final int currencies = Integer.getInteger("load.currencies", 163);
+    private final double changeProbability = Double.parseDouble(System.getProperty("load.change-probability", "0.3"));
+    private final Duration providerLatency = duration("load.provider-latency", "200ms");
+    private final double providerErrorRate = Double.parseDouble(System.getProperty("load.provider-error-rate", "0.05"));
+    private final Duration warmup = duration("load.warmup", "5s");
+
+    private final Random random = new Random(42);
+
+    @Test
+    void reportsThroughputLatencyAndRowGrowthPerSimulatedDay() throws Exception {
+        Duration publicationInterval = dayLength.dividedBy(publicationsPerDay);
+        List<String> supported = supportedCodes();
+        List<String> codes = payloadCodes(supported);
+
+        try (StubExchangeProvider provider = new StubExchangeProvider();
+             ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+
+            provider.setLatency(providerLatency);
+            provider.setErrorRate(providerErrorRate);
+            Map<String, BigDecimal> usdRates = randomRates(codes);
+            publish(provider, usdRates, publicationInterval);
+            publisher.scheduleAtFixedRate(() -> publish(provider, randomWalk(usdRates), publicationInterval),
+                    publicationInterval.toMillis(), publicationInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+            try (ConfigurableApplicationContext context = start(provider, publicationInterval)) {
+                awaitFirstSnapshot(context.getBean(LatestRatesHolder.class));
+                JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                List<HttpRequest> mix = requestMix(baseUrl, codes.stream().filter(supported::contains).toList());
+
+                System.out.printf("Load: %d req/s, %d simulated days of %d s, %d currencies, %d publications/day, "
+                                + "provider latency %d ms, provider error rate %.2f%n",
+                        requestRate, days, dayLength.toSeconds(), currencies, publicationsPerDay,
+                        providerLatency.toMillis(), providerErrorRate);
+
+                drive(client, mix, warmup, 0);
+
+                long rowsAtStart = count(jdbc, "currency_rates");
+                long rowsBefore = rowsAtStart;
+                long totalRequests = 0;
+                long totalErrors = 0;
+                for (int day = 1; day <= days; day++) {
+                    Day result = drive(client, mix, dayLength, day);
+                    long rows = count(jdbc, "currency_rates");
+                    System.out.printf("day %d: %d requests (%.0f req/s), %d errors, p50=%.1f ms p99=%.1f ms "
+                                    + "p999=%.1f ms, history rows %d (+%d), candles %d%n",
+                            day, result.requests(), result.throughput(), result.errors(),
+                            result.percentileMillis(0.50), result.percentileMillis(0.99),
+                            result.percentileMillis(0.999), rows, rows - rowsBefore, count(jdbc, "currency_candles"));
+                    rowsBefore = rows;
+                    totalRequests += result.requests();
+                    totalErrors += result.errors();
+                }
+
+                long growth = count(jdbc, "currency_rates") - rowsAtStart;
+                IngestStatsDto ingest = context.getBean(CurrencyService.class).getIngestStats();
+                System.out.printf("History rows: +%d over %d days, %.0f per day, ~%.0f per year; ingest: %s; "
+                                + "provider: %d requests, %d failed, %d not modified%n",
+                        growth, days, growth / (double) days, growth * 365.0 / days, ingest,
+                        provider.requests(), provider.failed(), provider.notModified());
+
+                assertThat(growth).isPositive();
+                assertThat(totalErrors).isLessThanOrEqualTo(totalRequests / 100);
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start(StubExchangeProvider provider, Duration publicationInterval) {
+        Duration heartbeat = dayLength.multipliedBy(HEARTBEAT_INTERVAL.toSeconds()).dividedBy(Duration.ofDays(1).toSeconds());
+        Duration minPoll = publicationInterval.dividedBy(10).compareTo(Duration.ofMillis(100)) > 0
+                ? publicationInterval.dividedBy(10)
+                : Duration.ofMillis(100);
+        return new SpringApplicationBuilder(CurrencyFetcherApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load-days",
+                        "--currency.api.base-url=" + provider.baseUrl(),
+                        "--currency.api.key=load",
+                        "--currency.ingest.bases=" + String.join(",", BASES),
+                        "--currency.ingest.min-poll-interval=" + minPoll.toMillis() + "ms",
+                        "--currency.ingest.max-poll-interval=" + publicationInterval.toMillis() + "ms",
+                        "--currency.ingest.next-update-grace=" + minPoll.toMillis() + "ms",
+                        "--currency.ingest.heartbeat-interval=" + heartbeat.toMillis() + "ms",
+                        "--resilience4j.retry.instances.exchangeClient.wait-duration=50ms",
+                        "--logging.level.com.example.currencyfetcher=WARN",
+                        "--logging.level.com.example.currencyfetcher.clients=OFF", // failures are counted by the stub
+                        "--spring.main.banner-mode=off");
+    }
+
+    /**
+     * Sends one request of the mix every {@code 1 / requestRate} for {@code length}, then waits for stragglers.
+     */
+    private Day drive(HttpClient client, List<HttpRequest> mix, Duration length, int day) throws InterruptedException {
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / requestRate;
+        int count = (int) (length.toNanos() / periodNanos);
+        long[] latencies = new long[count];
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<?>> inFlight = new ArrayList<>(count);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            long due = start + i * periodNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            int slot = i;
+            inFlight.add(client.sendAsync(mix.get((day * 31 + i) % mix.size()), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        latencies[slot] = System.nanoTime() - due;
+                        if (failure != null || response.statusCode() != 200) errors.incrementAndGet();
+                    }));
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).exceptionally(failure -> null).join();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Arrays.sort(latencies);
+        return new Day(count, errors.get(), elapsed, latencies);
+    }
+
+    private static List<HttpRequest> requestMix(String baseUrl, List<String> supported) {
+        Random random = new Random(7);
+        List<HttpRequest> mix = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String code = supported.get(random.nextInt(supported.size()));
+            String other = supported.get(random.nextInt(supported.size()));
+            String path;
+            if (i < 40) {
+                path = "/api/currency/" + code;
+            } else if (i < 80) {
+                path = "/api/currency/convert?from=" + code + "&to=" + other + "&amount=" + (1 + random.nextInt(10_000));
+            } else if (i < 90) {
+                path = "/api/currency/top?limit=5";
+            } else if (i < 95) {
+                path = "/api/currency/filter?minRate=" + (1 + random.nextInt(100));
+            } else {
+                path = "/api/currency/rates/" + BASES.get(random.nextInt(BASES.size()));
+            }
+            mix.add(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build());
+        }
+        Collections.shuffle(mix, random);
+        return mix;
+    }
+
+    private List<String> supportedCodes() throws IOException {
+        List<String> codes = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getClassLoader().getResourceAsStream("currency_codes.txt")))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                codes.add(line.trim());
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * The bases and supported codes first; beyond those, made-up codes so the payload can outgrow the real list.
+     */
+    private List<String> payloadCodes(List<String> supported) {
+        Set<String> taken = new LinkedHashSet<>(BASES);
+        for (String code : supported) {
+            if (taken.size() >= currencies) break;
+            taken.add(code);
+        }
+        List<String> codes = new ArrayList<>(taken);
+        for (int i = 0; codes.size() < currencies && i < 26 * 26 * 26; i++) {
+            String code = "" + (char) ('A' + i / 676) + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+            if (taken.add(code)) codes.add(code);
+        }
+        return codes;
+    }
+
+    private Map<String, BigDecimal> randomRates(List<String> codes) {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        for (String code : codes) {
+            rates.put(code, BigDecimal.valueOf(0.1 + random.nextDouble() * 1000).setScale(4, RoundingMode.HALF_UP));
+        }
+        rates.put("USD", BigDecimal.ONE);
+        return rates;
+    }
+
+    private Map<String, BigDecimal> randomWalk(Map<String, BigDecimal> rates) {
+        rates.replaceAll((code, rate) -> code.equals("USD") || random.nextDouble() >= changeProbability
+                ? rate
+                : rate.multiply(BigDecimal.valueOf(0.99 + random.nextDouble() * 0.02)).setScale(4, RoundingMode.HALF_UP));
+        return rates;
+    }
+
+    /**
+     * Publishes the USD rates and the matching native quotes of the other bases.
+     */
+    private static void publish(StubExchangeProvider provider, Map<String, BigDecimal> usdRates, Duration interval) {
+        Instant now = Instant.now();
+        for (String base : BASES) {
+            BigDecimal baseRate = usdRates.get(base);
+            Map<String, BigDecimal> quotes = new LinkedHashMap<>();
+            usdRates.forEach((code, rate) -> quotes.put(code,
+                    rate.divide(baseRate, MathContext.DECIMAL64).setScale(6, RoundingMode.HALF_UP)));
+            provider.publish(base, quotes, now, now.plus(interval));
+        }
+    }
+
+    private static void awaitFirstSnapshot(LatestRatesHolder latestRates) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (latestRates.current().isEmpty()) {
+            if (System.nanoTime() > deadline) throw new IllegalStateException("No rates ingested within 30 s");
+            Thread.sleep(100);
+        }
+    }
+
+    private static long count(JdbcTemplate jdbc, String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+
+    private record Day(int requests, int errors, Duration elapsed, long[] sortedLatencies) {
+
+        double throughput() {
+            return requests / (elapsed.toNanos() / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) return Double.NaN;
+            int index = (int) Math.ceil(sortedLatencies.length * percentile) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
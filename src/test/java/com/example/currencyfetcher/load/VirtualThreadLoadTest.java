@@ -0,0 +1,154 @@
+package com.example.currencyfetcher.load;
+
+import com.example.currencyfetcher.CurrencyFetcherApplication;
+import com.example.currencyfetcher.repository.CurrencyRateRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the highest number of concurrent clients the servlet stack serves within a fixed p99 latency,
+ * with platform request threads and with {@code spring.threads.virtual.enabled}. Every repository query is
+ * slowed down by {@link #DB_LATENCY} to reproduce a slow database.
+ * <p>
+ * Opt-in, as it boots the application twice and runs for a couple of minutes:
+ * <pre>mvn test -Dtest=VirtualThreadLoadTest -Dload.test=true</pre>
+ */
+@EnabledIfSystemProperty(named = "load.test", matches = "true")
+class VirtualThreadLoadTest {
+
+    private static final Duration DB_LATENCY = Duration.ofMillis(500);
+    private static final Duration P99_TARGET = Duration.ofMillis(1500);
+    private static final Duration STEP_DURATION = Duration.ofSeconds(8);
+    private static final int[] CONCURRENCY_STEPS = {10, 25, 50, 100, 200, 400, 800};
+    private static final int TOMCAT_MAX_THREADS = 10;
+
+    @Test
+    void virtualThreadsServeMoreConcurrentClientsWithinP99Target() throws Exception {
+        int platform = maxConcurrencyWithinTarget(false);
+        int virtual = maxConcurrencyWithinTarget(true);
+
+        System.out.printf("Max concurrent clients at p99 <= %d ms: platform=%d, virtual=%d%n",
+                P99_TARGET.toMillis(), platform, virtual);
+        assertThat(virtual).isGreaterThan(platform);
+    }
+
+    private int maxConcurrencyWithinTarget(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = start(virtualThreads);
+             HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+            context.getBean(JdbcTemplate.class).update(
+                    "INSERT INTO currency_rates (currency_code, timestamp, rate) VALUES ('EUR', ?, 0.91)",
+                    LocalDateTime.of(2025, 1, 1, 0, 0));
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/api/currency/EUR/as-of?timestamp=2025-06-01T00:00:00");
+
+            run(client, uri, CONCURRENCY_STEPS[2]); // warm-up
+
+            int best = 0;
+            for (int concurrency : CONCURRENCY_STEPS) {
+                Step step = run(client, uri, concurrency);
+                System.out.printf("[%s] concurrency=%d requests=%d errors=%d p99=%d ms%n",
+                        virtualThreads ? "virtual" : "platform", concurrency, step.requests(), step.errors(),
+                        step.p99().toMillis());
+                if (step.errors() > 0 || step.p99().compareTo(P99_TARGET) > 0) break;
+                best = concurrency;
+            }
+            return best;
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        return new SpringApplicationBuilder(CurrencyFetcherApplication.class, SlowRepositoryConfig.class)
+                .run(
+                        "--server.port=0",
+                        "--server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads,
+                        "--currency.api.base-url=http://127.0.0.1:9",
+                        "--spring.main.banner-mode=off");
+    }
+
+    /**
+     * Closed loop: every client sends its next request as soon as the previous one completes.
+     */
+    private static Step run(HttpClient client, URI uri, int concurrency) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        long deadline = System.nanoTime() + STEP_DURATION.toNanos();
+        AtomicInteger errors = new AtomicInteger();
+
+        List<Future<List<Long>>> clients = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> {
+                    List<Long> latencies = new ArrayList<>();
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies.add(System.nanoTime() - start);
+                        if (response.statusCode() != 200) errors.incrementAndGet();
+                    }
+                    return latencies;
+                }));
+            }
+        }
+
+        long[] latencies = clients.stream()
+                .flatMap(future -> future.resultNow().stream())
+                .mapToLong(Long::longValue)
+                .toArray();
+        Arrays.sort(latencies);
+        long p99 = latencies.length == 0 ? Long.MAX_VALUE : latencies[(int) Math.ceil(latencies.length * 0.99) - 1];
+        return new Step(latencies.length, errors.get(), Duration.ofNanos(p99));
+    }
+
+    private record Step(int requests, int errors, Duration p99) {
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class SlowRepositoryConfig {
+
+        @Bean
+        static BeanPostProcessor slowRepository() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof CurrencyRateRepository repository)) return bean;
+
+                    return Proxy.newProxyInstance(CurrencyRateRepository.class.getClassLoader(),
+                            new Class<?>[]{CurrencyRateRepository.class},
+                            (proxy, method, args) -> {
+                                if (method.getName().startsWith("find")) Thread.sleep(DB_LATENCY);
+                                try {
+                                    return method.invoke(repository, args);
+                                } catch (InvocationTargetException ex) {
+                                    throw ex.getCause();
+                                }
+                            });
+                }
+            };
+        }
+    }
+}
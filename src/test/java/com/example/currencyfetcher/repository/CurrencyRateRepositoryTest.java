@@ -6,10 +6,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -32,46 +34,65 @@ class CurrencyRateRepositoryTest {
     }
 
     @Test
-    @DisplayName("Get latest CurrencyRate by currency code")
-    void findTopByCurrencyCode() {
-        var now = LocalDateTime.now();
-        var older = now.minusDays(1);
-        repository.save(new CurrencyRate(new CurrencyRateId("USD", older), new BigDecimal("1.11")));
-        repository.save(new CurrencyRate(new CurrencyRateId("USD", now), new BigDecimal("1.33")));
-
-        var latest = repository.findTopByIdCurrencyCodeOrderByIdTimestampDesc("USD");
-        assertThat(latest).isNotNull();
-        assertThat(latest.getRate()).isEqualByComparingTo("1.33");
+    @DisplayName("Keyset pages walk the history newest first within the time window")
+    void pagesHistoryWithKeysetCursor() {
+        var base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int minute = 0; minute < 5; minute++) {
+            repository.save(new CurrencyRate(new CurrencyRateId("CHF", base.plusMinutes(minute)),
+                    new BigDecimal("0.9" + minute)));
+        }
+
+        List<CurrencyRate> firstPage = repository.findHistoryUpTo("CHF", base.plusMinutes(1), base.plusMinutes(3), Limit.of(2));
+        assertThat(firstPage).extracting(CurrencyRate::getTimestamp)
+                .containsExactly(base.plusMinutes(3), base.plusMinutes(2));
+
+        List<CurrencyRate> secondPage = repository.findHistoryBefore("CHF", base.plusMinutes(1),
+                firstPage.get(1).getTimestamp(), Limit.of(2));
+        assertThat(secondPage).extracting(CurrencyRate::getTimestamp)
+                .containsExactly(base.plusMinutes(1));
     }
 
     @Test
-    @DisplayName("List all rates by currency code, ordered by timestamp desc")
-    void findByCurrencyCodeOrderedDesc() {
-        var now = LocalDateTime.now();
-        repository.save(new CurrencyRate(new CurrencyRateId("EUR", now.minusHours(1)), new BigDecimal("0.9")));
-        repository.save(new CurrencyRate(new CurrencyRateId("EUR", now), new BigDecimal("0.91")));
-
-        List<CurrencyRate> eurRates = repository.findByIdCurrencyCodeOrderByIdTimestampDesc("EUR");
-        assertThat(eurRates).hasSize(2);
-        assertThat(eurRates.get(0).getRate()).isEqualByComparingTo("0.91");
-        assertThat(eurRates.get(1).getRate()).isEqualByComparingTo("0.9");
+    @DisplayName("Stream history within a time window")
+    void streamsHistoryWithinWindow() {
+        var base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        repository.save(new CurrencyRate(new CurrencyRateId("SEK", base), new BigDecimal("10.1")));
+        repository.save(new CurrencyRate(new CurrencyRateId("SEK", base.plusHours(1)), new BigDecimal("10.2")));
+        repository.save(new CurrencyRate(new CurrencyRateId("SEK", base.plusHours(2)), new BigDecimal("10.3")));
+
+        try (Stream<CurrencyRate> rates = repository.streamHistory("SEK", base, base.plusHours(1))) {
+            assertThat(rates.map(CurrencyRate::getRate))
+                    .usingElementComparator(BigDecimal::compareTo)
+                    .containsExactly(new BigDecimal("10.2"), new BigDecimal("10.1"));
+        }
     }
 
     @Test
-    @DisplayName("Find all distinct currency codes")
-    void findAllCurrencyCodes() {
-        repository.save(new CurrencyRate(new CurrencyRateId("GBP", LocalDateTime.now()), new BigDecimal("0.8")));
-        repository.save(new CurrencyRate(new CurrencyRateId("JPY", LocalDateTime.now()), new BigDecimal("130")));
+    @DisplayName("Effective rate at a point in time is the newest row at or before it")
+    void findsEffectiveRateAsOf() {
+        var base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        repository.save(new CurrencyRate(new CurrencyRateId("HKD", base), new BigDecimal("7.80")));
+        repository.save(new CurrencyRate(new CurrencyRateId("HKD", base.plusHours(3)), new BigDecimal("7.81")));
 
-        List<String> codes = repository.findAllCurrencies();
-        assertThat(codes).containsExactlyInAnyOrder("GBP", "JPY");
+        assertThat(repository.findTopByIdCurrencyCodeAndIdTimestampLessThanEqualOrderByIdTimestampDesc("HKD", base.plusHours(2))
+                .getRate()).isEqualByComparingTo("7.80");
+        assertThat(repository.findTopByIdCurrencyCodeAndIdTimestampLessThanEqualOrderByIdTimestampDesc("HKD", base.plusHours(3))
+                .getRate()).isEqualByComparingTo("7.81");
+        assertThat(repository.findTopByIdCurrencyCodeAndIdTimestampLessThanEqualOrderByIdTimestampDesc("HKD", base.minusMinutes(1)))
+                .isNull();
     }
 
     @Test
-    @DisplayName("Empty repository returns empty lists")
-    void returnsEmptyWhenNone() {
-        assertThat(repository.findByIdCurrencyCodeOrderByIdTimestampDesc("ZAR")).isEmpty();
-        assertThat(repository.findTopByIdCurrencyCodeOrderByIdTimestampDesc("ZAR")).isNull();
-        assertThat(repository.findAllCurrencies()).isEmpty();
+    @DisplayName("Bulk insert writes new rows without merging")
+    void insertsAllRowsInBatch() {
+        var now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        int inserted = repository.insertAll(List.of(
+                new CurrencyRate("NOK", new BigDecimal("10.55555"), now),
+                new CurrencyRate("DKK", new BigDecimal("6.8"), now)));
+
+        assertThat(inserted).isEqualTo(2);
+        assertThat(repository.findById(new CurrencyRateId("NOK", now)))
+                .hasValueSatisfying(rate -> assertThat(rate.getRate()).isEqualByComparingTo("10.5556"));
+        assertThat(repository.count()).isEqualTo(2);
     }
 }
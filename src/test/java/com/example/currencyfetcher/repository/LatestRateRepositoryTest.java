@@ -0,0 +1,60 @@
+package com.example.currencyfetcher.repository;
+
+import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.model.LatestRate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class LatestRateRepositoryTest {
+
+    @Autowired
+    private LatestRateRepository repository;
+
+    @Autowired
+    private CurrencyRateRepository historyRepository;
+
+    @Test
+    @DisplayName("Upsert keeps one row per currency holding the newest rate")
+    void upsertsLatestRatePerCurrency() {
+        var base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        repository.upsertAll(List.of(
+                new CurrencyRate("EUR", new BigDecimal("0.91"), base),
+                new CurrencyRate("GBP", new BigDecimal("0.78"), base)));
+
+        repository.upsertAll(List.of(new CurrencyRate("EUR", new BigDecimal("0.92"), base.plusHours(1))));
+
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(repository.findById("EUR")).hasValueSatisfying(latest -> {
+            assertThat(latest.getRate()).isEqualByComparingTo("0.92");
+            assertThat(latest.getTimestamp()).isEqualTo(base.plusHours(1));
+        });
+        assertThat(repository.findById("GBP").map(LatestRate::getRate))
+                .hasValueSatisfying(rate -> assertThat(rate).isEqualByComparingTo("0.78"));
+    }
+
+    @Test
+    @DisplayName("Backfill takes the newest history row of every currency")
+    void backfillsFromNewestHistoryRows() {
+        var base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        historyRepository.insertAll(List.of(
+                new CurrencyRate("SEK", new BigDecimal("10.1"), base),
+                new CurrencyRate("SEK", new BigDecimal("10.3"), base.plusHours(2)),
+                new CurrencyRate("NOK", new BigDecimal("10.5"), base.plusHours(1))));
+
+        repository.upsertAll(historyRepository.findNewestPerCurrency());
+
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(repository.findById("SEK").map(LatestRate::toHistoryRow))
+                .hasValue(new CurrencyRate("SEK", new BigDecimal("10.3"), base.plusHours(2)));
+        assertThat(repository.findById("NOK").map(LatestRate::getTimestamp)).hasValue(base.plusHours(1));
+    }
+}
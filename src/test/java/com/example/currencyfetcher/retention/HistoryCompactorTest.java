@@ -0,0 +1,130 @@
+package com.example.currencyfetcher.retention;
+
+import com.example.currencyfetcher.config.RetentionProperties;
+import com.example.currencyfetcher.history.RateHistoryStore;
+import com.example.currencyfetcher.history.TableRateHistoryStore;
+import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.repository.CurrencyRateRepository;
+import com.example.currencyfetcher.repository.LatestRateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+class HistoryCompactorTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Autowired
+    private CurrencyRateRepository repository;
+
+    @Autowired
+    private LatestRateRepository latestRateRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private RetentionProperties properties;
+    private HistoryCompactor compactor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RetentionProperties();
+        properties.setBatchSize(1); // every row is its own batch
+        compactor = new HistoryCompactor(new TableRateHistoryStore(repository, entityManager), latestRateRepository, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Recent rows are kept, older days thinned to hourly and then daily closes")
+    void thinsHistoryPerTier() {
+        var recent = LocalDateTime.of(2024, 5, 30, 9, 0);
+        var hourlyDay = LocalDateTime.of(2024, 5, 10, 0, 0);
+        var dailyDay = LocalDateTime.of(2024, 1, 10, 0, 0);
+        List<CurrencyRate> rows = new ArrayList<>(List.of(
+                rate(recent, "0.90"), rate(recent.plusMinutes(1), "0.91"), rate(recent.plusMinutes(2), "0.92"),
+                rate(hourlyDay.plusHours(10), "0.80"), rate(hourlyDay.plusHours(10).plusMinutes(20), "0.81"),
+                rate(hourlyDay.plusHours(10).plusMinutes(40), "0.82"), rate(hourlyDay.plusHours(11).plusMinutes(5), "0.83"),
+                rate(dailyDay.plusHours(9), "0.70"), rate(dailyDay.plusHours(15), "0.71"),
+                rate(dailyDay.plusHours(23).plusMinutes(30), "0.72")));
+        repository.insertAll(rows);
+        latestRateRepository.upsertAll(List.of(rows.get(2)));
+
+        CompactionResult result = compactor.compact(NOW);
+
+        assertThat(result.rowsDeleted()).isEqualTo(4);
+        assertThat(timestamps(recent, recent.plusDays(1))).hasSize(3);
+        assertThat(timestamps(hourlyDay, hourlyDay.plusDays(1))).containsExactly(
+                hourlyDay.plusHours(11).plusMinutes(5), hourlyDay.plusHours(10).plusMinutes(40));
+        assertThat(timestamps(dailyDay, dailyDay.plusDays(1))).containsExactly(dailyDay.plusHours(23).plusMinutes(30));
+        // The rate in effect at the end of each hour survives
+        assertThat(repository.findTopByIdCurrencyCodeAndIdTimestampLessThanEqualOrderByIdTimestampDesc(
+                "EUR", hourlyDay.plusHours(10).plusMinutes(50)).getRate()).isEqualByComparingTo("0.82");
+
+        assertThat(compactor.compact(NOW).rowsDeleted()).isZero();
+    }
+
+    @Test
+    @DisplayName("Rows past max-age are dropped before the tiers are thinned")
+    void dropsRowsPastMaxAge() {
+        var expired = LocalDateTime.of(2024, 1, 10, 9, 0);
+        var kept = LocalDateTime.of(2024, 5, 30, 9, 0);
+        repository.insertAll(List.of(rate(expired, "0.70"), rate(expired.plusHours(6), "0.71"), rate(kept, "0.90")));
+        properties.setMaxAge(Duration.ofDays(100));
+
+        CompactionResult result = compactor.compact(NOW);
+
+        assertThat(result.rowsDeleted()).isEqualTo(2);
+        assertThat(timestamps(LocalDateTime.of(2000, 1, 1, 0, 0), NOW)).containsExactly(kept);
+    }
+
+    @Test
+    @DisplayName("A run that starts while another is in progress is skipped instead of waiting")
+    void skipsRunWhileAnotherIsInProgress() throws Exception {
+        CountDownLatch inProgress = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RateHistoryStore slowStore = mock(RateHistoryStore.class);
+        when(slowStore.findOldestTimestamp()).thenAnswer(invocation -> {
+            inProgress.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        HistoryCompactor busy = new HistoryCompactor(slowStore, latestRateRepository, properties, new SimpleMeterRegistry());
+
+        CompletableFuture<CompactionResult> first = CompletableFuture.supplyAsync(() -> busy.compact(NOW));
+        assertThat(inProgress.await(5, TimeUnit.SECONDS)).isTrue();
+        CompactionResult second = busy.compact(NOW);
+        release.countDown();
+
+        assertThat(second.skipped()).isTrue();
+        assertThat(first.get(5, TimeUnit.SECONDS).skipped()).isFalse();
+        assertThat(busy.compact(NOW).skipped()).isFalse();
+    }
+
+    private List<LocalDateTime> timestamps(LocalDateTime from, LocalDateTime to) {
+        return repository.findHistoryBefore("EUR", from, to, Limit.of(100)).stream()
+                .map(CurrencyRate::getTimestamp)
+                .toList();
+    }
+
+    private static CurrencyRate rate(LocalDateTime timestamp, String rate) {
+        return new CurrencyRate("EUR", new BigDecimal(rate), timestamp);
+    }
+}
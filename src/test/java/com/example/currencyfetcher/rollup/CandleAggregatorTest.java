@@ -0,0 +1,54 @@
+package com.example.currencyfetcher.rollup;
+
+import com.example.currencyfetcher.model.CandleGranularity;
+import com.example.currencyfetcher.model.CurrencyCandle;
+import com.example.currencyfetcher.model.CurrencyCandleId;
+import com.example.currencyfetcher.model.CurrencyRate;
+import com.example.currencyfetcher.repository.CurrencyCandleRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(CandleAggregator.class)
+class CandleAggregatorTest {
+
+    @Autowired
+    private CandleAggregator aggregator;
+
+    @Autowired
+    private CurrencyCandleRepository candleRepository;
+
+    @Test
+    @DisplayName("Ticks are folded into hourly and daily OHLC candles")
+    void foldsTicksIntoCandles() {
+        var day = LocalDateTime.of(2024, 3, 1, 0, 0);
+        aggregator.apply(List.of(new CurrencyRate("JPY", new BigDecimal("148.50"), day.plusHours(9).plusMinutes(58))));
+        aggregator.apply(List.of(new CurrencyRate("JPY", new BigDecimal("149.10"), day.plusHours(9).plusMinutes(59))));
+        aggregator.apply(List.of(new CurrencyRate("JPY", new BigDecimal("148.20"), day.plusHours(10))));
+        aggregator.apply(List.of(new CurrencyRate("JPY", new BigDecimal("148.70"), day.plusHours(10).plusMinutes(1))));
+
+        List<CurrencyCandle> hours = candleRepository.findCandles("JPY", CandleGranularity.HOUR, day, day.plusDays(1), Limit.of(10));
+        assertThat(hours).hasSize(2);
+        assertThat(hours.get(0).getId().getBucketStart()).isEqualTo(day.plusHours(10));
+        assertThat(hours.get(0).getOpen()).isEqualByComparingTo("148.20");
+        assertThat(hours.get(0).getClose()).isEqualByComparingTo("148.70");
+        assertThat(hours.get(1).getHigh()).isEqualByComparingTo("149.10");
+
+        CurrencyCandle daily = candleRepository.findById(new CurrencyCandleId("JPY", CandleGranularity.DAY, day)).orElseThrow();
+        assertThat(daily.getOpen()).isEqualByComparingTo("148.50");
+        assertThat(daily.getHigh()).isEqualByComparingTo("149.10");
+        assertThat(daily.getLow()).isEqualByComparingTo("148.20");
+        assertThat(daily.getClose()).isEqualByComparingTo("148.70");
+        assertThat(daily.getSamples()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.currencyfetcher.scheduler;
+
+import com.example.currencyfetcher.config.IngestProperties;
+import com.example.currencyfetcher.ingest.IngestResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptivePollPolicyTest {
+
+    private static final Instant NOW = Instant.parse("2025-08-05T12:00:00Z");
+
+    private final IngestProperties properties = new IngestProperties();
+    private final AdaptivePollPolicy policy = new AdaptivePollPolicy(properties);
+
+    @Test
+    void shouldWaitForProviderNextUpdate_afterNewRates() {
+        // Arrange
+        Instant nextUpdate = NOW.plus(Duration.ofMinutes(20));
+
+        // Act
+        policy.onResult(NOW, changed(nextUpdate));
+
+        // Assert
+        assertThat(policy.getNextPollAt()).isEqualTo(nextUpdate.plus(properties.getNextUpdateGrace()));
+        assertThat(policy.shouldPoll(NOW.plus(Duration.ofMinutes(10)))).isFalse();
+        assertThat(policy.shouldPoll(nextUpdate.plus(Duration.ofMinutes(1)))).isTrue();
+    }
+
+    @Test
+    void shouldCapWaitAtMaxPollInterval_whenNextUpdateIsFarAway() {
+        policy.onResult(NOW, changed(NOW.plus(Duration.ofDays(1))));
+
+        assertThat(policy.getNextPollAt()).isEqualTo(NOW.plus(properties.getMaxPollInterval()));
+    }
+
+    @Test
+    void shouldBackOffExponentially_whileProviderIsLate_thenTighten() {
+        // Arrange: the advertised update time has passed but the provider still serves the old rates
+        IngestResult late = IngestResult.unchanged(Duration.ZERO, NOW.minus(Duration.ofMinutes(5)));
+        Duration min = properties.getMinPollInterval();
+
+        // Act & Assert
+        policy.onResult(NOW, late);
+        assertThat(policy.getNextPollAt()).isEqualTo(NOW.plus(min));
+        policy.onResult(NOW, late);
+        assertThat(policy.getNextPollAt()).isEqualTo(NOW.plus(min.multipliedBy(2)));
+        policy.onResult(NOW, late);
+        assertThat(policy.getNextPollAt()).isEqualTo(NOW.plus(min.multipliedBy(4)));
+
+        policy.onResult(NOW, changed(null));
+        assertThat(policy.getNextPollAt()).isEqualTo(NOW.plus(min));
+    }
+
+    @Test
+    void shouldPollAgainNextTick_afterFailure() {
+        policy.onResult(NOW, changed(NOW.plus(Duration.ofMinutes(30))));
+
+        policy.onResult(NOW, IngestResult.skipped());
+
+        assertThat(policy.getNextPollAt()).isEqualTo(NOW.plus(properties.getMinPollInterval()));
+    }
+
+    @Test
+    void shouldPoll_whenTickFiresJustBeforeMinInterval() {
+        // Arrange: the failed poll started a few ms after its tick, so the next tick reads an earlier clock
+        Instant polledAt = NOW.plusMillis(5);
+        policy.onResult(polledAt, IngestResult.skipped());
+        Instant nextTick = NOW.plus(properties.getMinPollInterval());
+
+        // Act & Assert
+        assertThat(policy.shouldPoll(nextTick)).isTrue();
+        assertThat(policy.shouldPoll(polledAt.plus(properties.getMinPollInterval().dividedBy(2)))).isFalse();
+    }
+
+    private static IngestResult changed(Instant nextUpdate) {
+        return new IngestResult(10, 10, Duration.ZERO, Duration.ZERO, false, nextUpdate);
+    }
+}
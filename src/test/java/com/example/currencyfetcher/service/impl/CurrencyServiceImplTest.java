@@ -1,23 +1,51 @@
 package com.example.currencyfetcher.service.impl;
 
 import com.example.currencyfetcher.cache.CacheService;
-import com.example.currencyfetcher.cache.CachedCurrency;
 import com.example.currencyfetcher.clients.ExchangeClient;
+import com.example.currencyfetcher.config.CacheProperties;
+import com.example.currencyfetcher.config.IngestProperties;
+import com.example.currencyfetcher.dto.BatchConversionResultDto;
+import com.example.currencyfetcher.dto.ConversionRequestDto;
+import com.example.currencyfetcher.dto.CurrencyApiResponseDto;
 import com.example.currencyfetcher.dto.CurrencyResponseDto;
 import com.example.currencyfetcher.exceptions.ExternalServiceException;
 import com.example.currencyfetcher.exceptions.InvalidCurrencyException;
-import com.example.currencyfetcher.model.CurrencyRate;
-import com.example.currencyfetcher.model.CurrencyRateId;
-import com.example.currencyfetcher.repository.CurrencyRateRepository;
+import com.example.currencyfetcher.history.RateHistoryStore;
+import com.example.currencyfetcher.ingest.IngestResult;
+import com.example.currencyfetcher.ingest.IngestStats;
+import com.example.currencyfetcher.ingest.IngestWriter;
+import com.example.currencyfetcher.model.LatestRate;
+import com.example.currencyfetcher.model.ScaledRate;
+import com.example.currencyfetcher.repository.LatestRateRepository;
+import com.example.currencyfetcher.snapshot.CrossRateTable;
+import com.example.currencyfetcher.snapshot.LatestRatesHolder;
 import com.example.currencyfetcher.validation.CurrencyValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,7 +57,10 @@ class CurrencyServiceImplTest {
     private ExchangeClient exchangeClient;
 
     @Mock
-    private CurrencyRateRepository repository;
+    private RateHistoryStore history;
+
+    @Mock
+    private LatestRateRepository latestRateRepository;
 
     @Mock
     private CacheService cacheService;
@@ -37,6 +68,26 @@ class CurrencyServiceImplTest {
     @Mock
     private CurrencyValidator validator;
 
+    private final MutableClock clock = new MutableClock();
+
+    @Spy
+    private LatestRatesHolder latestRates = new LatestRatesHolder(clock);
+
+    @Mock
+    private IngestWriter ingestWriter;
+
+    @Spy
+    private Scheduler ingestScheduler = Schedulers.immediate();
+
+    @Spy
+    private IngestProperties ingestProperties = new IngestProperties();
+
+    @Spy
+    private IngestStats ingestStats = new IngestStats(new SimpleMeterRegistry());
+
+    @Spy
+    private CacheProperties cacheProperties = new CacheProperties();
+
     @InjectMocks
     private CurrencyServiceImpl currencyService;
 
@@ -45,9 +96,9 @@ class CurrencyServiceImplTest {
         // Arrange
         String currency = "EUR";
         BigDecimal rate = new BigDecimal("1.15");
-        LocalDateTime timestamp = LocalDateTime.now();
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
-        CachedCurrency cached = new CachedCurrency(currency, rate, timestamp);
+        ScaledRate cached = ScaledRate.of(currency, rate, timestamp);
         when(cacheService.getIfFresh(eq(currency))).thenReturn(Optional.of(cached));
 
         // Act
@@ -62,7 +113,7 @@ class CurrencyServiceImplTest {
         assertThat(dto.timestamp()).isEqualTo(timestamp);
 
         verify(cacheService).getIfFresh(eq(currency));
-        verifyNoInteractions(repository); // Ensure DB was not called
+        verifyNoInteractions(history, latestRateRepository); // Ensure DB was not called
     }
 
     @Test
@@ -76,14 +127,10 @@ class CurrencyServiceImplTest {
         when(cacheService.getIfFresh(eq(currency))).thenReturn(Optional.empty());
 
         // Simulate DB has latest value
-        CurrencyRate fromDb = new CurrencyRate();
-        CurrencyRateId id = new CurrencyRateId();
-        id.setCurrencyCode(currency);
-        id.setTimestamp(timestamp);
-        fromDb.setId(id);
-        fromDb.setRate(rate);
+        LatestRate fromDb = new LatestRate(currency, rate, timestamp);
 
-        when(repository.findTopByIdCurrencyCodeOrderByIdTimestampDesc(eq(currency))).thenReturn(fromDb);
+        when(latestRateRepository.findById(eq(currency))).thenReturn(Optional.of(fromDb));
+        runLoadsThroughCache();
 
         // Act
         Optional<CurrencyResponseDto> result = currencyService.getCachedCurrency(currency);
@@ -95,17 +142,131 @@ class CurrencyServiceImplTest {
         assertThat(dto.rate()).isEqualByComparingTo(rate);
         assertThat(dto.timestamp()).isEqualTo(timestamp);
 
-        // Verifications
-        verify(cacheService).getIfFresh(eq(currency));
-        verify(repository).findTopByIdCurrencyCodeOrderByIdTimestampDesc(eq(currency));
+        // Verifications: the cache is checked again inside the single-flight load
+        verify(cacheService, times(2)).getIfFresh(eq(currency));
+        verify(latestRateRepository).findById(eq(currency));
+        verifyNoInteractions(history); // current rates never scan the history
         verify(cacheService).update(eq(currency), eq(rate), eq(timestamp));
     }
 
+    @Test
+    void shouldCoalesceConcurrentCacheMisses_intoOneRepositoryQuery() {
+        // Arrange: a cache backed by a map, and a slow repository
+        Map<String, ScaledRate> cache = new ConcurrentHashMap<>();
+        when(cacheService.getIfFresh("EUR")).thenAnswer(invocation -> Optional.ofNullable(cache.get("EUR")));
+        when(cacheService.update(eq("EUR"), any(), any())).thenAnswer(invocation -> {
+            ScaledRate cached = ScaledRate.of("EUR", invocation.getArgument(1), invocation.getArgument(2));
+            cache.put("EUR", cached);
+            return cached;
+        });
+
+        LatestRate fromDb = new LatestRate("EUR", new BigDecimal("0.91"), LocalDateTime.now());
+        when(latestRateRepository.findById("EUR")).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return Optional.of(fromDb);
+        });
+        runLoadsThroughCache();
+
+        int readers = 1000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<CurrencyResponseDto>>> results = new ArrayList<>(readers);
+
+        // Act
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < readers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return currencyService.getCachedCurrency("EUR");
+                }));
+            }
+            start.countDown();
+        }
+
+        // Assert
+        assertThat(results).allSatisfy(result -> assertThat(result.resultNow())
+                .hasValueSatisfying(dto -> assertThat(dto.rate()).isEqualByComparingTo("0.91")));
+        verify(latestRateRepository, times(1)).findById("EUR");
+    }
+
+    @Test
+    void shouldServeStaleEntryWithinPolicy_insteadOfQueryingRepository() {
+        // Arrange
+        ScaledRate stale = ScaledRate.of("CHF", new BigDecimal("0.88"), LocalDateTime.now().minusHours(2));
+        when(cacheService.getIfFresh("CHF")).thenReturn(Optional.empty());
+        when(cacheService.getIfServable("CHF")).thenReturn(Optional.of(stale));
+
+        // Act
+        Optional<CurrencyResponseDto> result = currencyService.getCachedCurrency("CHF");
+
+        // Assert
+        assertThat(result).hasValueSatisfying(dto -> assertThat(dto.rate()).isEqualByComparingTo("0.88"));
+        verifyNoInteractions(history, latestRateRepository);
+    }
+
+    @Test
+    void shouldRefreshEntriesDueForRefresh_fromSnapshotFirst() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        latestRates.publish(now, Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal("0.91")));
+        when(cacheService.dueForRefresh()).thenReturn(List.of("EUR", "CHF"));
+        when(latestRateRepository.findById("CHF"))
+                .thenReturn(Optional.of(new LatestRate("CHF", new BigDecimal("0.88"), now.minusDays(3))));
+        runLoadsThroughCache();
+
+        // Act
+        int refreshed = currencyService.refreshCache();
+
+        // Assert
+        assertThat(refreshed).isEqualTo(2);
+        verify(cacheService).update(ScaledRate.of("EUR", new BigDecimal("0.91"), now));
+        verify(cacheService).update(eq("CHF"), argThat(rate -> rate.compareTo(new BigDecimal("0.88")) == 0), any());
+        verify(latestRateRepository, never()).findById("EUR");
+    }
+
+    @Test
+    void shouldStopServingSnapshot_onceFetchesFailForLongerThanTtlPlusMaxStale() {
+        // Arrange
+        cacheProperties.setMaxStale(Duration.ofSeconds(30));
+        latestRates.publish(LocalDateTime.now(), Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal("0.91")));
+        when(exchangeClient.fetchLatestRates(anyString()))
+                .thenReturn(Mono.error(new ExternalServiceException("API is down")));
+        when(cacheService.dueForRefresh()).thenReturn(List.of("EUR"));
+        when(latestRateRepository.findById("EUR")).thenReturn(Optional.empty());
+        runLoadsThroughCache();
+
+        // Act & Assert: within ttl + max-stale the snapshot still answers
+        currencyService.fetchAndSaveRates();
+        clock.advance(Duration.ofSeconds(90));
+        assertThat(currencyService.getCachedCurrency("EUR")).isPresent();
+
+        currencyService.fetchAndSaveRates();
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(currencyService.getCachedCurrency("EUR")).isEmpty();
+        currencyService.refreshCache();
+        verify(cacheService, never()).update(any(ScaledRate.class));
+        verify(latestRateRepository, times(2)).findById("EUR");
+    }
+
+    @Test
+    void shouldConvertFromLatestRates_onceSnapshotIsOlderThanTtlPlusMaxStale() {
+        // Arrange: the snapshot still holds last hour's rates, the latest-rate rows have moved on
+        LocalDateTime now = LocalDateTime.now();
+        latestRates.publish(now.minusHours(1), Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal("0.5")));
+        clock.advance(cacheProperties.getTtl().plusSeconds(1));
+        when(latestRateRepository.findById("USD")).thenReturn(Optional.of(new LatestRate("USD", BigDecimal.ONE, now)));
+        when(latestRateRepository.findById("EUR"))
+                .thenReturn(Optional.of(new LatestRate("EUR", new BigDecimal("0.4"), now)));
+        runLoadsThroughCache();
+
+        // Act & Assert
+        assertThat(currencyService.convert("USD", "EUR", BigDecimal.TEN).convertedAmount()).isEqualByComparingTo("4");
+    }
+
     @Test
     void shouldNotCrash_whenExternalApiFails() {
         // Arrange
         when(exchangeClient.fetchLatestRates(anyString()))
-                .thenThrow(new ExternalServiceException("API is down"));
+                .thenReturn(Mono.error(new ExternalServiceException("API is down")));
 
         // Act
         assertThatCode(() -> currencyService.fetchAndSaveRates())
@@ -113,7 +274,7 @@ class CurrencyServiceImplTest {
 
         // Assert
         verify(exchangeClient).fetchLatestRates(eq("USD"));
-        verify(repository, never()).saveAll(anyList());
+        verify(ingestWriter, never()).write(anyList());
     }
 
     @Test
@@ -129,4 +290,188 @@ class CurrencyServiceImplTest {
                 .hasMessageContaining("Unsupported currency");
     }
 
+    @Test
+    void shouldPublishSnapshot_whenRatesAreSaved() {
+        // Arrange
+        Map<String, BigDecimal> rates = Map.of(
+                "USD", BigDecimal.ONE,
+                "EUR", new BigDecimal("0.91"),
+                "JPY", new BigDecimal("148.123456"));
+        when(exchangeClient.fetchLatestRates("USD")).thenReturn(Mono.just(new CurrencyApiResponseDto("USD", rates)));
+        when(ingestWriter.write(anyList())).thenReturn(3);
+
+        // Act
+        IngestResult result = currencyService.fetchAndSaveRates();
+
+        // Assert
+        verify(ingestWriter).write(anyList());
+        verify(cacheService).updateAll(argThat(cached -> cached.size() == 3));
+        assertThat(result.fetched()).isEqualTo(3);
+        assertThat(result.persisted()).isEqualTo(3);
+        assertThat(latestRates.current().getVersion()).isEqualTo(1L);
+        assertThat(latestRates.current().find("JPY"))
+                .hasValueSatisfying(dto -> assertThat(dto.rate()).isEqualByComparingTo("148.1235"));
+    }
+
+    @Test
+    void shouldSkipWriteAndPublish_whenProviderRatesAreUnchanged() {
+        // Arrange
+        Instant nextUpdate = Instant.parse("2025-08-06T00:00:01Z");
+        CurrencyApiResponseDto response = new CurrencyApiResponseDto("USD",
+                Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal("0.91")),
+                nextUpdate.minus(Duration.ofDays(1)).getEpochSecond(), nextUpdate.getEpochSecond());
+        CurrencyApiResponseDto sameBody = new CurrencyApiResponseDto("USD", response.conversionRates(),
+                response.timeLastUpdateUnix(), response.timeNextUpdateUnix());
+        when(exchangeClient.fetchLatestRates("USD"))
+                .thenReturn(Mono.just(response))
+                .thenReturn(Mono.just(sameBody));
+        when(ingestWriter.write(anyList())).thenReturn(2);
+
+        // Act
+        IngestResult first = currencyService.fetchAndSaveRates();
+        IngestResult second = currencyService.fetchAndSaveRates();
+
+        // Assert
+        assertThat(first.fetched()).isEqualTo(2);
+        assertThat(first.nextUpdate()).isEqualTo(nextUpdate);
+        assertThat(second.unchanged()).isTrue();
+        assertThat(second.nextUpdate()).isEqualTo(nextUpdate);
+        verify(ingestWriter, times(1)).write(anyList());
+        assertThat(latestRates.current().getVersion()).isEqualTo(1L);
+        assertThat(ingestStats.snapshot().unchangedFetches()).isEqualTo(1);
+        assertThat(ingestStats.snapshot().rowsSaved()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFetchBasesConcurrently_andUseNativeQuotesInOneSnapshot() {
+        // Arrange
+        ingestProperties.setBases(List.of("USD", "EUR", "GBP"));
+        Duration callLatency = Duration.ofMillis(300);
+        when(exchangeClient.fetchLatestRates("USD")).thenReturn(Mono.just(new CurrencyApiResponseDto("USD", Map.of(
+                "USD", BigDecimal.ONE,
+                "EUR", new BigDecimal("0.5"),
+                "GBP", new BigDecimal("0.8")))).delayElement(callLatency));
+        when(exchangeClient.fetchLatestRates("EUR")).thenReturn(Mono.just(new CurrencyApiResponseDto("EUR", Map.of(
+                "EUR", BigDecimal.ONE,
+                "USD", new BigDecimal("2.01"),
+                "GBP", new BigDecimal("1.61")))).delayElement(callLatency));
+        when(exchangeClient.fetchLatestRates("GBP")).thenReturn(Mono.error(new ExternalServiceException("API is down")));
+        when(ingestWriter.write(anyList())).thenReturn(3);
+
+        // Act
+        IngestResult result = currencyService.fetchAndSaveRates();
+
+        // Assert
+        assertThat(result.fetched()).isEqualTo(3);
+        assertThat(result.fetchTime()).isLessThan(callLatency.multipliedBy(2));
+        assertThat(latestRates.current().getVersion()).isEqualTo(1L);
+
+        CrossRateTable crossRates = latestRates.current().getCrossRates();
+        assertThat(crossRates.rate("EUR", "GBP")).isEqualByComparingTo("1.61");   // native EUR quote
+        assertThat(crossRates.rate("GBP", "EUR")).isEqualByComparingTo("0.625");  // GBP failed: via USD
+        assertThat(crossRates.rate("USD", "EUR")).isEqualByComparingTo("0.5");
+    }
+
+    @Test
+    void shouldServeFilterAndTopFromSnapshot_withoutTouchingRepository() {
+        // Arrange
+        latestRates.publish(LocalDateTime.now(), Map.of(
+                "USD", BigDecimal.ONE,
+                "EUR", new BigDecimal("0.91"),
+                "GBP", new BigDecimal("0.78"),
+                "JPY", new BigDecimal("148.50")));
+
+        // Act
+        List<CurrencyResponseDto> top = currencyService.getTopCurrencies(2);
+        List<CurrencyResponseDto> filtered = currencyService.filterByMinRate(0.9);
+
+        // Assert
+        assertThat(top).extracting(CurrencyResponseDto::currencyCode).containsExactly("JPY", "USD");
+        assertThat(filtered).extracting(CurrencyResponseDto::currencyCode).containsExactly("JPY", "USD", "EUR");
+        verifyNoInteractions(history);
+    }
+
+    @Test
+    void shouldConvertFromSnapshot_likeBigDecimalHalfUpOverCachedRates() {
+        Random random = new Random(11);
+        List<String> codes = List.of("USD", "EUR", "GBP", "JPY", "CHF", "KWD", "IDR", "VND");
+        for (int round = 0; round < 100; round++) {
+            // Arrange: stored rates have scale 4, as the cached/DB path saw them
+            Map<String, BigDecimal> rates = new HashMap<>();
+            codes.forEach(code -> rates.put(code, BigDecimal.valueOf(random.nextLong(1, 300_000_000L), 4)));
+            latestRates.publish(LocalDateTime.now(), rates);
+
+            for (int i = 0; i < 200; i++) {
+                String from = codes.get(random.nextInt(codes.size()));
+                String to = codes.get(random.nextInt(codes.size()));
+                BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 100_000_000_000L), random.nextInt(0, 7));
+
+                // Act
+                BigDecimal converted = currencyService.convert(from, to, amount).convertedAmount();
+
+                // Assert
+                BigDecimal previous = amount.multiply(rates.get(to)).divide(rates.get(from), 4, RoundingMode.HALF_UP);
+                assertThat(converted).isEqualTo(previous);
+            }
+        }
+        verifyNoInteractions(cacheService, latestRateRepository);
+    }
+
+    @Test
+    void shouldConvertBatchAgainstOneSnapshot_validatingEachCodeOnce() {
+        // Arrange
+        latestRates.publish(LocalDateTime.now(), Map.of(
+                "USD", BigDecimal.ONE,
+                "EUR", new BigDecimal("0.5")));
+        when(validator.isSupported("USD")).thenReturn(true);
+        when(validator.isSupported("EUR")).thenReturn(true);
+        when(validator.isSupported("XYZ")).thenReturn(false);
+
+        Stream<ConversionRequestDto> requests = Stream.of(
+                new ConversionRequestDto("USD", "EUR", new BigDecimal("10")),
+                new ConversionRequestDto("EUR", "USD", new BigDecimal("10")),
+                new ConversionRequestDto("USD", "XYZ", new BigDecimal("10")),
+                new ConversionRequestDto("USD", "EUR", BigDecimal.ZERO));
+
+        // Act
+        List<BatchConversionResultDto> results = currencyService.convertBatch(requests).toList();
+
+        // Assert
+        assertThat(results).extracting(BatchConversionResultDto::index).containsExactly(0, 1, 2, 3);
+        assertThat(results.get(0).convertedAmount()).isEqualByComparingTo("5");
+        assertThat(results.get(1).convertedAmount()).isEqualByComparingTo("20");
+        assertThat(results.get(2).error()).isEqualTo("Unsupported currency code: XYZ");
+        assertThat(results.get(3).error()).isEqualTo("Amount must be greater than 0");
+        verify(validator).isSupported("USD");
+        verify(validator).isSupported("EUR");
+        verifyNoInteractions(history, cacheService);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private void runLoadsThroughCache() {
+        when(cacheService.recordLoad(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    }
 }
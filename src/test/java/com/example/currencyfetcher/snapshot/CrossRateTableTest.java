@@ -0,0 +1,82 @@
+package com.example.currencyfetcher.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class CrossRateTableTest {
+
+    private static final Map<String, BigDecimal> USD_RATES = Map.of(
+            "USD", BigDecimal.ONE,
+            "EUR", new BigDecimal("0.9"),
+            "GBP", new BigDecimal("0.8"),
+            "JPY", new BigDecimal("150"));
+
+    @Test
+    void shouldTriangulateThroughBase_whenNoNativeQuoteExists() {
+        // Arrange
+        CrossRateTable table = CrossRateTable.fromBaseRates(USD_RATES);
+
+        // Act & Assert
+        assertThat(table.size()).isEqualTo(4);
+        assertThat(table.rate("EUR", "GBP")).isEqualByComparingTo(new BigDecimal("0.8")
+                .divide(new BigDecimal("0.9"), MathContext.DECIMAL128));
+        assertThat(table.rate("eur", "EUR")).isEqualTo(BigDecimal.ONE);
+        assertThat(table.convert("EUR", "GBP", new BigDecimal("100"))).isEqualTo("88.8889");
+        assertThat(table.convert("GBP", "JPY", new BigDecimal("2.5"))).isEqualTo("468.7500");
+    }
+
+    @Test
+    void shouldPreferNativeQuote_overTriangulatedRate() {
+        // Arrange
+        CrossRateTable table = CrossRateTable.fromBaseRates(USD_RATES,
+                Map.of("EUR", Map.of("GBP", new BigDecimal("0.876543"), "USD", new BigDecimal("1.1"))));
+
+        // Act & Assert
+        assertThat(table.rate("EUR", "GBP")).isEqualTo("0.876543");
+        assertThat(table.convert("EUR", "GBP", new BigDecimal("100"))).isEqualTo("87.6543");
+        assertThat(table.convert("EUR", "USD", new BigDecimal("10"))).isEqualTo("11.0000");
+        // EUR to JPY has no native quote and GBP has no native row: both stay triangulated
+        assertThat(table.convert("EUR", "JPY", BigDecimal.ONE)).isEqualTo("166.6667");
+        assertThat(table.convert("GBP", "EUR", new BigDecimal("100"))).isEqualTo("112.5000");
+    }
+
+    @Test
+    void shouldReturnNull_forCodesNotInTable() {
+        // Arrange
+        CrossRateTable table = CrossRateTable.fromBaseRates(Map.of(
+                "USD", BigDecimal.ONE,
+                "EUR", new BigDecimal("0.9"),
+                "ZWL", BigDecimal.ZERO));
+
+        // Act & Assert
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(table.rate("USD", "CHF")).isNull();
+        assertThat(table.rate("ZWL", "USD")).isNull();
+        assertThat(table.convert("XX", "USD", BigDecimal.ONE)).isNull();
+        assertThat(table.convert("USD", null, BigDecimal.ONE)).isNull();
+        assertThat(CrossRateTable.empty().convert("USD", "EUR", BigDecimal.ONE)).isNull();
+    }
+
+    @Test
+    void shouldListRatesForBase_inCodeOrder() {
+        // Arrange
+        CrossRateTable table = CrossRateTable.fromBaseRates(USD_RATES);
+
+        // Act
+        Map<String, BigDecimal> rates = table.ratesFor("GBP");
+
+        // Assert
+        assertThat(rates).containsExactly(
+                entry("EUR", new BigDecimal("1.1250")),
+                entry("GBP", new BigDecimal("1.0000")),
+                entry("JPY", new BigDecimal("187.5000")),
+                entry("USD", new BigDecimal("1.2500")));
+        assertThat(table.ratesFor("CHF")).isEmpty();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.currencyfetcher.snapshot;
+
+import com.example.currencyfetcher.cache.CacheService;
+import com.example.currencyfetcher.history.RateHistoryStore;
+import com.example.currencyfetcher.ingest.ChangeOnlyFilter;
+import com.example.currencyfetcher.model.LatestRate;
+import com.example.currencyfetcher.repository.LatestRateRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LatestRatesRestorerTest {
+
+    @Mock
+    private LatestRateRepository repository;
+
+    @Mock
+    private RateHistoryStore history;
+
+    @Spy
+    private LatestRatesHolder latestRates = new LatestRatesHolder();
+
+    @Mock
+    private CacheService cacheService;
+
+    @Mock
+    private ChangeOnlyFilter changeOnlyFilter;
+
+    @InjectMocks
+    private LatestRatesRestorer restorer;
+
+    @Test
+    void shouldRestoreEachRate_withItsOwnTimestamp() {
+        // Arrange: GBP has not moved since the day before EUR's last row
+        LocalDateTime eurTimestamp = LocalDateTime.of(2024, 3, 5, 10, 0);
+        LocalDateTime gbpTimestamp = LocalDateTime.of(2024, 3, 4, 9, 30);
+        when(repository.findAll()).thenReturn(List.of(
+                new LatestRate("EUR", new BigDecimal("0.91"), eurTimestamp),
+                new LatestRate("GBP", new BigDecimal("0.78"), gbpTimestamp)));
+
+        // Act
+        restorer.afterSingletonsInstantiated();
+
+        // Assert
+        LatestRatesSnapshot snapshot = latestRates.current();
+        assertThat(snapshot.getVersion()).isEqualTo(1L);
+        assertThat(snapshot.getTimestamp()).isEqualTo(eurTimestamp);
+        assertThat(snapshot.find("EUR")).hasValueSatisfying(dto -> assertThat(dto.timestamp()).isEqualTo(eurTimestamp));
+        assertThat(snapshot.find("GBP")).hasValueSatisfying(dto -> assertThat(dto.timestamp()).isEqualTo(gbpTimestamp));
+        assertThat(snapshot.findScaled("GBP")).hasValueSatisfying(rate -> assertThat(rate.timestamp()).isEqualTo(gbpTimestamp));
+        verifyNoInteractions(history);
+    }
+}
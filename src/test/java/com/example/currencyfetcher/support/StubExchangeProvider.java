@@ -0,0 +1,130 @@
+package com.example.currencyfetcher.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the exchange API: serves {@code /{key}/latest/{base}} with the rates published per base,
+ * an ETag per publication, and {@code 304 Not Modified} for a matching {@code If-None-Match}.
+ * Every response can be delayed by a fixed latency, and a share of requests can be failed with a 500.
+ */
+public class StubExchangeProvider implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Publication> publications = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger version = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final HttpServer server;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double errorRate;
+
+    public StubExchangeProvider() {
+        try {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    /**
+     * Base URL to configure as {@code currency.api.base-url}.
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void publish(String base, Map<String, BigDecimal> rates, Instant lastUpdate, Instant nextUpdate) {
+        publications.put(base, new Publication("\"v" + version.incrementAndGet() + "\"", rates, lastUpdate, nextUpdate));
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @param errorRate share of requests, between 0 and 1, answered with {@code 500 Internal Server Error}
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    public int notModified() {
+        return notModified.get();
+    }
+
+    public int failed() {
+        return failed.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        Publication publication = publications.get(path.substring(path.lastIndexOf('/') + 1));
+
+        try (exchange) {
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failed.incrementAndGet();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            if (publication == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", publication.etag());
+            if (publication.etag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("result", "success");
+            body.put("base_code", path.substring(path.lastIndexOf('/') + 1));
+            body.put("time_last_update_unix", publication.lastUpdate().getEpochSecond());
+            body.put("time_next_update_unix", publication.nextUpdate().getEpochSecond());
+            body.put("conversion_rates", publication.rates());
+            byte[] json = objectMapper.writeValueAsBytes(body);
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, json.length);
+            exchange.getResponseBody().write(json);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private record Publication(String etag, Map<String, BigDecimal> rates, Instant lastUpdate, Instant nextUpdate) {
+    }
+}
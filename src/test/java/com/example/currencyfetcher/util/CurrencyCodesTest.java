@@ -0,0 +1,39 @@
+package com.example.currencyfetcher.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CurrencyCodesTest {
+
+    @Test
+    void shouldMapCodesToSlots_caseInsensitively() {
+        assertThat(CurrencyCodes.slot("AAA")).isZero();
+        assertThat(CurrencyCodes.slot("ZZZ")).isEqualTo(CurrencyCodes.SLOTS - 1);
+        assertThat(CurrencyCodes.slot("eur")).isEqualTo(CurrencyCodes.slot("EUR"));
+        assertThat(CurrencyCodes.slot("EU")).isEqualTo(CurrencyCodes.UNKNOWN);
+        assertThat(CurrencyCodes.slot("E1R")).isEqualTo(CurrencyCodes.UNKNOWN);
+        assertThat(CurrencyCodes.slot("E[R")).isEqualTo(CurrencyCodes.UNKNOWN);
+        assertThat(CurrencyCodes.slot("E@R")).isEqualTo(CurrencyCodes.UNKNOWN);
+        assertThat(CurrencyCodes.slot(null)).isEqualTo(CurrencyCodes.UNKNOWN);
+    }
+
+    @Test
+    void shouldAssignStableDenseIds_andShareCanonicalStrings() {
+        // Arrange
+        int before = CurrencyCodes.size();
+
+        // Act
+        int id = CurrencyCodes.register("qqx");
+        int again = CurrencyCodes.register("QQX");
+
+        // Assert
+        assertThat(again).isEqualTo(id);
+        assertThat(id).isEqualTo(before);
+        assertThat(CurrencyCodes.size()).isEqualTo(before + 1);
+        assertThat(CurrencyCodes.id("Qqx")).isEqualTo(id);
+        assertThat(CurrencyCodes.code(id)).isEqualTo("QQX");
+        assertThat(CurrencyCodes.canonical("qqx")).isSameAs(CurrencyCodes.code(id));
+        assertThat(CurrencyCodes.register("Q1X")).isEqualTo(CurrencyCodes.UNKNOWN);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.currencyfetcher.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FixedPointTest {
+
+    @Test
+    void shouldMatchBigDecimalHalfUp_forRandomAmountsAndRates() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            // Arrange
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 100_000_000_000L), random.nextInt(0, 7));
+            long toUnits = random.nextLong(1, 20_000_000_000L);
+            long fromUnits = random.nextLong(1, 20_000_000_000L);
+
+            // Act
+            BigDecimal converted = FixedPoint.multiplyDivide(amount, toUnits, fromUnits, 0);
+
+            // Assert
+            BigDecimal expected = amount.multiply(FixedPoint.toDecimal(toUnits))
+                    .divide(FixedPoint.toDecimal(fromUnits), 4, RoundingMode.HALF_UP);
+            assertThat(converted).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldRoundHalfAwayFromZero() {
+        assertThat(FixedPoint.divideHalfUp(15, 10)).isEqualTo(2);
+        assertThat(FixedPoint.divideHalfUp(14, 10)).isEqualTo(1);
+        assertThat(FixedPoint.divideHalfUp(-15, 10)).isEqualTo(-2);
+        assertThat(FixedPoint.divideHalfUp(-14, 10)).isEqualTo(-1);
+        assertThat(FixedPoint.divideHalfUp(Long.MAX_VALUE, Long.MAX_VALUE - 1)).isEqualTo(1);
+
+        // 0.00045 * 1/3 is exactly 0.00015: a rounded intermediate rate would give 0.0001
+        assertThat(FixedPoint.multiplyDivide(new BigDecimal("0.00045"), 1, 3, 0)).isEqualTo("0.0002");
+    }
+
+    @Test
+    void shouldFallBackToBigDecimal_whenLongWouldOverflow() {
+        BigDecimal amount = new BigDecimal("98765432109876543210.123456789");
+
+        BigDecimal converted = FixedPoint.multiplyDivide(amount, 1_482_345, 9_123, 0);
+
+        assertThat(converted).isEqualTo(amount.multiply(new BigDecimal("148.2345"))
+                .divide(new BigDecimal("0.9123"), 4, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    void shouldApplyRateScale_forNativeQuotes() {
+        // 100.5 EUR at a native quote of 0.123456789
+        assertThat(FixedPoint.multiplyDivide(new BigDecimal("100.5"), 123_456_789, 1, 9)).isEqualTo("12.4074");
+        assertThat(FixedPoint.ceilUnits(new BigDecimal("1.00001"))).isEqualTo(10_001);
+        assertThat(FixedPoint.toUnits(new BigDecimal("1.06745"))).isEqualTo(10_675);
+    }
+}